@@ -1,13 +1,49 @@
 package me.zort.sqllib.api;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 import java.util.concurrent.atomic.AtomicReference;
 
-@AllArgsConstructor
+/**
+ * Column definitions and values of a serialized object,
+ * with values at the same indexes as their definitions.
+ * <p>
+ * Definition arrays may be shared between objects of the same type
+ * and must not be modified.
+ */
 @Getter
 public class DefsVals {
     private final String[] defs;
-    private final AtomicReference<Object>[] vals;
+    private final Object[] values;
+
+    public DefsVals(String[] defs, Object[] values) {
+        this.defs = defs;
+        this.values = values;
+    }
+
+    /**
+     * @deprecated Use {@link DefsVals#DefsVals(String[], Object[])} instead.
+     */
+    @Deprecated
+    public DefsVals(String[] defs, AtomicReference<Object>[] vals) {
+        this.defs = defs;
+        this.values = new Object[vals.length];
+        for (int i = 0; i < vals.length; i++) {
+            values[i] = vals[i].get();
+        }
+    }
+
+    /**
+     * @deprecated Values are no longer wrapped, use {@link DefsVals#getValues()} instead.
+     * Returned references are copies and changing them doesn't affect this object.
+     */
+    @Deprecated
+    @SuppressWarnings("unchecked")
+    public AtomicReference<Object>[] getVals() {
+        AtomicReference<Object>[] vals = (AtomicReference<Object>[]) new AtomicReference<?>[values.length];
+        for (int i = 0; i < values.length; i++) {
+            vals[i] = new AtomicReference<>(values[i]);
+        }
+        return vals;
+    }
 }
@@ -3,6 +3,8 @@ package me.zort.sqllib.api;
 import com.google.gson.Gson;
 import me.zort.sqllib.api.options.NamingStrategy;
 
+import java.util.Set;
+
 public interface ISQLDatabaseOptions {
 
   void setAutoReconnect(boolean autoReconnect);
@@ -15,6 +17,18 @@ public interface ISQLDatabaseOptions {
 
   void setGson(Gson gson);
 
+  void setStatementCacheSize(int statementCacheSize);
+
+  void setFetchSize(int fetchSize);
+
+  void setBatchSize(int batchSize);
+
+  void setSlowQueryThreshold(long slowQueryThreshold);
+
+  void setExplainSlowQueries(boolean explainSlowQueries);
+
+  void setSlowQueryRedactedColumns(Set<String> slowQueryRedactedColumns);
+
   boolean isAutoReconnect();
 
   boolean isDebug();
@@ -25,4 +39,16 @@ public interface ISQLDatabaseOptions {
 
   Gson getGson();
 
+  int getStatementCacheSize();
+
+  int getFetchSize();
+
+  int getBatchSize();
+
+  long getSlowQueryThreshold();
+
+  boolean isExplainSlowQueries();
+
+  Set<String> getSlowQueryRedactedColumns();
+
 }
@@ -0,0 +1,55 @@
+package me.zort.sqllib.api.data;
+
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Represents a result of batch execution. Alongside the success
+ * state, it holds update count of each row in the batch in order
+ * of the rows.
+ */
+@Getter
+public class BatchQueryResult implements QueryResult {
+
+  private final boolean successful;
+  private final String rejectMessage;
+  // Update counts per row, see Statement#executeBatch
+  private final int[] updateCounts;
+
+  public BatchQueryResult(int[] updateCounts) {
+    this(true, null, updateCounts);
+  }
+
+  public BatchQueryResult(boolean successful, @Nullable String rejectMessage, int[] updateCounts) {
+    this.successful = successful;
+    this.rejectMessage = rejectMessage;
+    this.updateCounts = updateCounts;
+  }
+
+  /**
+   * Returns sum of all known update counts. Rows reported as
+   * {@link Statement#SUCCESS_NO_INFO} or {@link Statement#EXECUTE_FAILED}
+   * are not counted.
+   *
+   * @return Total update count.
+   */
+  public int getTotalUpdateCount() {
+    int total = 0;
+    for (int count : updateCounts) {
+      if (count > 0) total += count;
+    }
+    return total;
+  }
+
+  @Override
+  public String toString() {
+    return "BatchQueryResult{" +
+            "successful=" + successful +
+            ", rejectMessage='" + rejectMessage + '\'' +
+            ", updateCounts=" + Arrays.toString(updateCounts) +
+            '}';
+  }
+}
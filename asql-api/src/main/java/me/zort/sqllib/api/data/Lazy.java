@@ -0,0 +1,86 @@
+package me.zort.sqllib.api.data;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A value that is loaded on first access and then remembered.
+ * Used for lazily fetched linked objects, see
+ * {@link me.zort.sqllib.internal.annotation.LinkedOne#fetch()}.
+ * <p>
+ * The loader runs on the thread calling {@link Lazy#get()}, possibly long
+ * after the query that created this value. Linked objects of pooled
+ * connections are therefore loaded using a connection borrowed from the
+ * pool for the time of loading, not the connection the query ran on.
+ *
+ * @param <T> Type of the value.
+ */
+public final class Lazy<T> implements Supplier<T> {
+
+  // Guards loading of the value
+  private final ReentrantLock lock = new ReentrantLock();
+  private volatile Supplier<T> loader;
+  private T value;
+
+  private Lazy(@Nullable Supplier<T> loader, @Nullable T value) {
+    this.loader = loader;
+    this.value = value;
+  }
+
+  /**
+   * Creates a value loaded by provided loader on first {@link Lazy#get()}.
+   *
+   * @param loader The loader, called at most once.
+   * @return The lazy value.
+   */
+  public static <T> Lazy<T> of(final @NotNull Supplier<T> loader) {
+    return new Lazy<>(Objects.requireNonNull(loader, "Loader cannot be null!"), null);
+  }
+
+  /**
+   * Creates an already loaded value.
+   *
+   * @param value The value.
+   * @return The lazy value.
+   */
+  public static <T> Lazy<T> loaded(final @Nullable T value) {
+    return new Lazy<>(null, value);
+  }
+
+  /**
+   * Returns the value, loading it if this is the first access.
+   *
+   * @return The value.
+   */
+  @Nullable
+  @Override
+  public T get() {
+    if (loader != null) {
+      lock.lock();
+      try {
+        Supplier<T> loader = this.loader;
+        if (loader != null) {
+          value = loader.get();
+          this.loader = null;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    return value;
+  }
+
+  public boolean isLoaded() {
+    return loader == null;
+  }
+
+  @Override
+  public String toString() {
+    return isLoaded() ? "Lazy[" + value + "]" : "Lazy[not loaded]";
+  }
+
+}
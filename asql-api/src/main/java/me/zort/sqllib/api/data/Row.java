@@ -1,8 +1,47 @@
 package me.zort.sqllib.api.data;
 
-import java.util.HashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-public class Row extends HashMap<String, Object> {
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * A single row of a query result, accessible as a map of column
+ * names to values.
+ * <p>
+ * Rows read from a result set store their values in an array and share
+ * one {@link RowHeader} with all other rows of the result. Putting a column
+ * which is not part of the header (or removing any) turns the row into
+ * a regular map, so the row can be still modified as before.
+ */
+public class Row extends AbstractMap<String, Object> implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private RowHeader header;
+  private Object[] values;
+  // Used instead of header and values once the row is detached
+  private Map<String, Object> detached;
+
+  public Row() {
+    this(RowHeader.EMPTY, new Object[0]);
+  }
+
+  /**
+   * Creates a row backed by provided values array, without copying it.
+   *
+   * @param header Header of the result this row belongs to.
+   * @param values Values in order of header indexes.
+   */
+  public Row(final @NotNull RowHeader header, final @NotNull Object[] values) {
+    if (values.length != header.size())
+      throw new IllegalArgumentException("Values count must be same as header size!");
+
+    this.header = header;
+    this.values = values;
+    this.detached = null;
+  }
 
   public String getString(String key) {
     return (String) get(key);
@@ -36,4 +75,141 @@ public class Row extends HashMap<String, Object> {
     return (short) get(key);
   }
 
+  /**
+   * Returns the header this row shares with other rows of its result.
+   *
+   * @return The header, or null if the row has been modified
+   * to contain columns outside of the header.
+   */
+  @Nullable
+  public RowHeader getHeader() {
+    return detached == null ? header : null;
+  }
+
+  /**
+   * Returns value at provided header index, see {@link RowHeader#indexOf(Object)}.
+   * Only available while {@link Row#getHeader()} is not null.
+   *
+   * @param index Value index.
+   * @return The value.
+   */
+  public Object getValue(int index) {
+    if (detached != null) throw new IllegalStateException("Row has no header!");
+    return values[index];
+  }
+
+  @Override
+  public Object get(Object key) {
+    if (detached != null) return detached.get(key);
+    int index = header.indexOf(key);
+    return index >= 0 ? values[index] : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    if (detached != null) return detached.containsKey(key);
+    return header.indexOf(key) >= 0;
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    if (detached == null) {
+      int index = header.indexOf(key);
+      if (index >= 0) {
+        Object previous = values[index];
+        values[index] = value;
+        return previous;
+      }
+      detach();
+    }
+    return detached.put(key, value);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    if (detached == null) {
+      if (header.indexOf(key) < 0) return null;
+      detach();
+    }
+    return detached.remove(key);
+  }
+
+  @Override
+  public void clear() {
+    if (detached == null) {
+      detached = new LinkedHashMap<>();
+      header = null;
+      values = null;
+    } else {
+      detached.clear();
+    }
+  }
+
+  @Override
+  public int size() {
+    return detached != null ? detached.size() : values.length;
+  }
+
+  @NotNull
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    if (detached != null) return detached.entrySet();
+    return new AbstractSet<Entry<String, Object>>() {
+      @Override
+      public Iterator<Entry<String, Object>> iterator() {
+        return detached != null ? detached.entrySet().iterator() : new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return Row.this.size();
+      }
+    };
+  }
+
+  // Copies values into a regular map, so columns can be added and removed.
+  private void detach() {
+    Map<String, Object> map = new LinkedHashMap<>(Math.max(values.length * 2, 16));
+    for (int i = 0; i < values.length; i++) {
+      map.put(header.name(i), values[i]);
+    }
+    this.detached = map;
+    this.header = null;
+    this.values = null;
+  }
+
+  // Iterates columns of the header the row had when the iterator was created.
+  // Entries read and write through the row, so they stay valid if it detaches.
+  private final class EntryIterator implements Iterator<Entry<String, Object>> {
+    private final RowHeader header = Row.this.header;
+    private int index = 0;
+    private String last = null;
+
+    @Override
+    public boolean hasNext() {
+      return index < header.size();
+    }
+
+    @Override
+    public Entry<String, Object> next() {
+      if (!hasNext()) throw new NoSuchElementException();
+      String key = header.name(index++);
+      last = key;
+      return new SimpleEntry<String, Object>(key, get(key)) {
+        @Override
+        public Object setValue(Object value) {
+          super.setValue(value);
+          return put(getKey(), value);
+        }
+      };
+    }
+
+    @Override
+    public void remove() {
+      if (last == null) throw new IllegalStateException();
+      Row.this.remove(last);
+      last = null;
+    }
+  }
+
 }
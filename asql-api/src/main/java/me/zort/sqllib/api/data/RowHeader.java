@@ -0,0 +1,93 @@
+package me.zort.sqllib.api.data;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Immutable column header shared by all {@link Row} objects
+ * of a single result. It maps column names to indexes in row
+ * value arrays.
+ */
+public final class RowHeader implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  static final RowHeader EMPTY = new RowHeader(new String[0]);
+
+  // Unique column names in order of their first occurrence
+  private final String[] names;
+  // Value index of each result column, duplicate columns share the index
+  private final int[] slots;
+  private final Map<String, Integer> indexes;
+
+  /**
+   * Creates a header for provided result columns. If a column
+   * name occurs more than once, the last column wins, same as
+   * when putting them into a map.
+   *
+   * @param columns Result column names, in order.
+   */
+  public RowHeader(final @NotNull String[] columns) {
+    Map<String, Integer> indexes = new HashMap<>(columns.length * 2);
+    List<String> names = new ArrayList<>(columns.length);
+    this.slots = new int[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      Integer index = indexes.get(columns[i]);
+      if (index == null) {
+        index = names.size();
+        names.add(columns[i]);
+        indexes.put(columns[i], index);
+      }
+      slots[i] = index;
+    }
+    this.names = names.toArray(new String[0]);
+    this.indexes = Collections.unmodifiableMap(indexes);
+  }
+
+  /**
+   * Returns value index of provided column name.
+   *
+   * @param name Column name.
+   * @return The index, or -1 if there is no such column.
+   */
+  public int indexOf(Object name) {
+    Integer index = indexes.get(name);
+    return index != null ? index : -1;
+  }
+
+  /**
+   * Returns value index of the column at provided position
+   * in the result (0-based).
+   *
+   * @param column Column position.
+   * @return The value index.
+   */
+  public int slot(int column) {
+    return slots[column];
+  }
+
+  public String name(int index) {
+    return names[index];
+  }
+
+  /**
+   * @return Number of unique columns, which is length of row value arrays.
+   */
+  public int size() {
+    return names.length;
+  }
+
+  /**
+   * @return Number of columns in the result, including duplicates.
+   */
+  public int getColumnCount() {
+    return slots.length;
+  }
+
+  public List<String> getNames() {
+    return Collections.unmodifiableList(Arrays.asList(names));
+  }
+
+}
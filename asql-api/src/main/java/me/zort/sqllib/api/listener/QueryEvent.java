@@ -0,0 +1,71 @@
+package me.zort.sqllib.api.listener;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Completed query reported to {@link QueryListener}.
+ * Durations are in nanoseconds, zero for phases the query didn't go through.
+ */
+public interface QueryEvent {
+
+  Kind getKind();
+
+  Outcome getOutcome();
+
+  /**
+   * Returns the executed SQL. Values of queries built by this library
+   * are bound as parameters, so they are not present in the string.
+   *
+   * @return The SQL, or null if the query has not been built.
+   */
+  @Nullable
+  String getSql();
+
+  /**
+   * Returns hash of the SQL with literals replaced by placeholders
+   * and whitespace collapsed. Queries that differ only in values have
+   * the same fingerprint.
+   *
+   * @return The fingerprint, or 0 if the query has not been built.
+   */
+  long getFingerprint();
+
+  // Building the query string and its values
+  long getBuildNanos();
+
+  // Obtaining the statement (from cache) and binding values
+  long getPrepareNanos();
+
+  long getExecuteNanos();
+
+  // Reading rows from the result set
+  long getReadNanos();
+
+  // Mapping rows to objects, including linked objects
+  long getMapNanos();
+
+  long getTotalNanos();
+
+  /**
+   * Returns count of rows read for queries, or count of updated
+   * rows for executions (-1 if unknown).
+   *
+   * @return The row count.
+   */
+  int getRowCount();
+
+  @Nullable
+  Throwable getError();
+
+  enum Kind {
+    QUERY, EXEC
+  }
+
+  enum Outcome {
+    SUCCESS,
+    // Result returned from CacheManager, not executed
+    CACHED,
+    ERROR
+  }
+
+}
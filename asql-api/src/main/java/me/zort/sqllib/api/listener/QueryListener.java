@@ -0,0 +1,27 @@
+package me.zort.sqllib.api.listener;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Listener notified after each query executed by a connection,
+ * with timings of its phases.
+ * <p>
+ * Listeners are called synchronously on the thread that executed
+ * the query, so they should return quickly. Exceptions thrown by
+ * listeners are logged and ignored.
+ */
+@FunctionalInterface
+public interface QueryListener {
+
+  /**
+   * Called when a query completes, successfully or not.
+   * <p>
+   * The event object is reused by the connection for following queries,
+   * so it must not be kept after this method returns. Copy the values
+   * that need to be kept instead.
+   *
+   * @param event The query event.
+   */
+  void onQuery(@NotNull QueryEvent event);
+
+}
@@ -16,6 +16,9 @@ public interface StatementMappingResultAdapter {
   /**
    * Adapts invoked {@link StatementMappingStrategy} method QueryResult to
    * the final result that can be passed to proxy instance.
+   * <p>
+   * For methods returning {@link java.util.concurrent.CompletableFuture}, the
+   * result is adapted to type argument of the future and completes it.
    *
    * @param method The invoked proxy method.
    * @param result The QueryResult of the invoked method.
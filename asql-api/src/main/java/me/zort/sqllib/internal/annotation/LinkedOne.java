@@ -24,6 +24,12 @@ import java.lang.annotation.Target;
  * <p>
  * \ @LinkedOne(localColumn = "player_id", targetTable = "players")
  * \ private Player player;
+ * <p>
+ * Linked objects can be also fetched on first access, using
+ * {@link Fetch#LAZY} and {@link me.zort.sqllib.api.data.Lazy} field type:
+ * <p>
+ * \ @LinkedOne(localColumn = "player_id", targetTable = "players", fetch = LinkedOne.Fetch.LAZY)
+ * \ private Lazy&lt;Player&gt; player;
  *
  * @author ZorTik
  */
@@ -48,4 +54,27 @@ public @interface LinkedOne {
    */
   String targetTable();
 
+  /**
+   * This represents when the linked object is fetched.
+   * Lazy fetch requires the field to be of {@link me.zort.sqllib.api.data.Lazy} type.
+   *
+   * @return The fetch type.
+   */
+  Fetch fetch() default Fetch.EAGER;
+
+  enum Fetch {
+    /**
+     * Linked object is fetched while mapping.
+     */
+    EAGER,
+    /**
+     * Linked object is fetched on first {@link me.zort.sqllib.api.data.Lazy#get()}.
+     * If the object was mapped by a pooled connection, the fetch borrows
+     * another connection from the pool, as the original one may be returned
+     * by then. Loading while holding the only free connection of an exhausted
+     * pool therefore waits until a connection is available.
+     */
+    LAZY
+  }
+
 }
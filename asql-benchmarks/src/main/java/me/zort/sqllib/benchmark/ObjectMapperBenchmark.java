@@ -0,0 +1,46 @@
+package me.zort.sqllib.benchmark;
+
+import com.google.gson.Gson;
+import me.zort.sqllib.SQLDatabaseOptions;
+import me.zort.sqllib.api.DefsVals;
+import me.zort.sqllib.api.data.Row;
+import me.zort.sqllib.api.data.RowHeader;
+import me.zort.sqllib.internal.impl.DefaultObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures mapping of rows to objects and objects to column values
+ * using {@link DefaultObjectMapper}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ObjectMapperBenchmark {
+
+  private DefaultObjectMapper mapper;
+  private Row row;
+  private SQLiteFixture.User user;
+
+  @Setup
+  public void setup() {
+    mapper = new DefaultObjectMapper(new Gson(), new SQLDatabaseOptions().getNamingStrategy());
+    row = new Row(new RowHeader(new String[]{"id", "nickname", "points"}), new Object[]{1, "User1", 10});
+    user = new SQLiteFixture.User(1, "User1", 10);
+  }
+
+  @Benchmark
+  public SQLiteFixture.User deserialize() {
+    return mapper.deserializeValues(row, SQLiteFixture.User.class);
+  }
+
+  @Benchmark
+  public DefsVals serialize() {
+    return mapper.serializeValues(user);
+  }
+
+}
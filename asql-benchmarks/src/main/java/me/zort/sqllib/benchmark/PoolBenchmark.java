@@ -0,0 +1,57 @@
+package me.zort.sqllib.benchmark;
+
+import me.zort.sqllib.SQLDatabaseConnection;
+import me.zort.sqllib.pool.SQLConnectionPool;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures borrowing and returning connections of {@link SQLConnectionPool}
+ * by more threads than there are connections.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class PoolBenchmark {
+
+  @Param({"2", "8"})
+  public int maxConnections;
+
+  private SQLConnectionPool pool;
+
+  @Setup
+  public void setup() throws SQLException {
+    SQLConnectionPool.Options options = new SQLConnectionPool.Options();
+    options.setMaxConnections(maxConnections);
+    options.setBorrowObjectTimeout(TimeUnit.MINUTES.toMillis(1));
+    pool = SQLiteFixture.builder().createPool(options);
+    // Opens connections before measuring.
+    SQLDatabaseConnection[] connections = new SQLDatabaseConnection[maxConnections];
+    for (int i = 0; i < maxConnections; i++) {
+      connections[i] = pool.getResource();
+    }
+    for (SQLDatabaseConnection connection : connections) {
+      connection.close();
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.close();
+  }
+
+  @Benchmark
+  public void borrowAndRelease(Blackhole blackhole) throws SQLException {
+    try (SQLDatabaseConnection connection = pool.getResource()) {
+      blackhole.consume(connection);
+    }
+  }
+
+}
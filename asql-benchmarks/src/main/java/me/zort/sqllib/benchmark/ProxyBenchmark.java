@@ -0,0 +1,64 @@
+package me.zort.sqllib.benchmark;
+
+import me.zort.sqllib.SQLDatabaseConnection;
+import me.zort.sqllib.SQLDatabaseOptions;
+import me.zort.sqllib.mapping.annotation.Limit;
+import me.zort.sqllib.mapping.annotation.Placeholder;
+import me.zort.sqllib.mapping.annotation.Select;
+import me.zort.sqllib.mapping.annotation.Table;
+import me.zort.sqllib.mapping.annotation.Where;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures query through a mapping proxy against the same query built
+ * directly, so the difference is the cost of proxy invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProxyBenchmark {
+
+  private SQLDatabaseConnection connection;
+  private UserRepository repository;
+
+  @Setup
+  public void setup() {
+    SQLDatabaseOptions options = new SQLDatabaseOptions();
+    options.setStatementCacheSize(64);
+    connection = SQLiteFixture.open(options, 1000);
+    repository = connection.createProxy(UserRepository.class);
+  }
+
+  @TearDown
+  public void tearDown() {
+    connection.disconnect();
+  }
+
+  @Benchmark
+  public Optional<SQLiteFixture.User> proxy() {
+    return repository.selectOne("User1");
+  }
+
+  @Benchmark
+  public Optional<SQLiteFixture.User> direct() {
+    return connection.select().from(SQLiteFixture.TABLE)
+            .where().isEqual("nickname", "User1")
+            .also().limit(1)
+            .obtainOne(SQLiteFixture.User.class);
+  }
+
+  @Table(SQLiteFixture.TABLE)
+  public interface UserRepository {
+    @Select
+    @Where(@Where.Condition(column = "nickname", value = "{name}"))
+    @Limit(1)
+    Optional<SQLiteFixture.User> selectOne(@Placeholder("name") String nickname);
+  }
+
+}
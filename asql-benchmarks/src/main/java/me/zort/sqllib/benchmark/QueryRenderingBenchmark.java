@@ -0,0 +1,42 @@
+package me.zort.sqllib.benchmark;
+
+import me.zort.sqllib.internal.query.InsertQuery;
+import me.zort.sqllib.internal.query.SelectQuery;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building of query nodes and rendering them to SQL,
+ * without a connection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QueryRenderingBenchmark {
+
+  @Param({"1", "100"})
+  public int rows;
+
+  @Benchmark
+  public String select() {
+    SelectQuery query = new SelectQuery(null, SQLiteFixture.TABLE, Collections.emptyList());
+    query.where().isEqual("nickname", "User1").and().bt("points", 10);
+    query.limit(10);
+    return query.buildQuery();
+  }
+
+  @Benchmark
+  public String insert() {
+    InsertQuery query = new InsertQuery().into(SQLiteFixture.TABLE, "id", "nickname", "points");
+    for (int i = 0; i < rows; i++) {
+      query.row(i, "User" + i, i * 10);
+    }
+    return query.buildQuery();
+  }
+
+}
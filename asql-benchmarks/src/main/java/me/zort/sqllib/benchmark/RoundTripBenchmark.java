@@ -0,0 +1,70 @@
+package me.zort.sqllib.benchmark;
+
+import me.zort.sqllib.SQLDatabaseConnection;
+import me.zort.sqllib.SQLDatabaseOptions;
+import me.zort.sqllib.api.data.QueryResult;
+import me.zort.sqllib.api.data.QueryRowsResult;
+import me.zort.sqllib.api.data.Row;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures whole queries, from building to mapped results,
+ * with and without the statement cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RoundTripBenchmark {
+
+  private static final int ROWS = 1000;
+
+  @Param({"0", "64"})
+  public int statementCacheSize;
+
+  private SQLDatabaseConnection connection;
+  private int next = 0;
+
+  @Setup
+  public void setup() {
+    SQLDatabaseOptions options = new SQLDatabaseOptions();
+    options.setStatementCacheSize(statementCacheSize);
+    connection = SQLiteFixture.open(options, ROWS);
+  }
+
+  @TearDown
+  public void tearDown() {
+    connection.disconnect();
+  }
+
+  @Benchmark
+  public QueryRowsResult<Row> selectOne() {
+    return connection.select().from(SQLiteFixture.TABLE).where().isEqual("id", nextId()).obtainAll();
+  }
+
+  @Benchmark
+  public QueryRowsResult<SQLiteFixture.User> selectOneMapped() {
+    return connection.select().from(SQLiteFixture.TABLE).where().isEqual("id", nextId()).obtainAll(SQLiteFixture.User.class);
+  }
+
+  @Benchmark
+  public QueryRowsResult<SQLiteFixture.User> selectPageMapped() {
+    return connection.select().from(SQLiteFixture.TABLE).where().bt("points", 0).also().limit(100).obtainAll(SQLiteFixture.User.class);
+  }
+
+  @Benchmark
+  public QueryResult update() {
+    int id = nextId();
+    return connection.update().table(SQLiteFixture.TABLE).set("points", id).where().isEqual("id", id).execute();
+  }
+
+  private int nextId() {
+    next = (next + 1) % ROWS;
+    return next;
+  }
+
+}
@@ -0,0 +1,82 @@
+package me.zort.sqllib.benchmark;
+
+import me.zort.sqllib.SQLConnectionBuilder;
+import me.zort.sqllib.SQLDatabaseConnection;
+import me.zort.sqllib.SQLDatabaseOptions;
+import me.zort.sqllib.api.data.BatchQueryResult;
+import me.zort.sqllib.internal.annotation.PrimaryKey;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory SQLite database shared by the benchmarks, so they
+ * don't need a database server.
+ */
+public final class SQLiteFixture {
+
+  public static final String TABLE = "users";
+
+  private SQLiteFixture() {
+  }
+
+  public static SQLConnectionBuilder builder() {
+    return SQLConnectionBuilder.ofSQLite(":memory:");
+  }
+
+  /**
+   * Opens new in-memory database with users table filled with
+   * provided count of rows.
+   *
+   * @param options Options of the connection.
+   * @param rows    Count of users.
+   * @return The connected connection.
+   */
+  public static SQLDatabaseConnection open(SQLDatabaseOptions options, int rows) {
+    SQLDatabaseConnection connection = builder().build(options);
+    if (!connection.connect()) {
+      throw new IllegalStateException("Failed to open in-memory database!");
+    }
+    if (!connection.buildEntitySchema(TABLE, User.class)) {
+      throw new IllegalStateException("Failed to create table " + TABLE + "!");
+    }
+    List<User> users = new ArrayList<>(rows);
+    for (int i = 0; i < rows; i++) {
+      users.add(new User(i, "User" + i, i * 10));
+    }
+    BatchQueryResult result = connection.insertAll(TABLE, users);
+    if (!result.isSuccessful()) {
+      throw new IllegalStateException("Failed to insert users: " + result);
+    }
+    return connection;
+  }
+
+  public static class User {
+    @PrimaryKey
+    private int id;
+    private String nickname;
+    private int points;
+
+    public User() {
+    }
+
+    public User(int id, String nickname, int points) {
+      this.id = id;
+      this.nickname = nickname;
+      this.points = points;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public String getNickname() {
+      return nickname;
+    }
+
+    public int getPoints() {
+      return points;
+    }
+  }
+
+}
@@ -0,0 +1,55 @@
+package me.zort.sqllib.internal.query;
+
+import me.zort.sqllib.benchmark.SQLiteFixture;
+import me.zort.sqllib.util.Pair;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link QueryDetails#buildStatementDetails()}, which turns
+ * rendered details into SQL with ? placeholders and values to bind.
+ * <p>
+ * Placed in the package of {@link QueryDetails}, since the method
+ * is not public.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QueryDetailsBenchmark {
+
+  @Param({"1", "100"})
+  public int rows;
+
+  private QueryDetails select;
+  private QueryDetails insert;
+
+  @Setup
+  public void setup() {
+    SelectQuery selectQuery = new SelectQuery(null, SQLiteFixture.TABLE, Collections.emptyList());
+    selectQuery.where().isEqual("nickname", "User1").and().bt("points", 10);
+    selectQuery.limit(10);
+    select = selectQuery.buildQueryDetails();
+
+    InsertQuery insertQuery = new InsertQuery().into(SQLiteFixture.TABLE, "id", "nickname", "points");
+    for (int i = 0; i < rows; i++) {
+      insertQuery.row(i, "User" + i, i * 10);
+    }
+    insert = insertQuery.buildQueryDetails();
+  }
+
+  @Benchmark
+  public Pair<String, Object[]> select() {
+    return select.buildStatementDetails();
+  }
+
+  @Benchmark
+  public Pair<String, Object[]> insert() {
+    return insert.buildStatementDetails();
+  }
+
+}
@@ -3,7 +3,10 @@ package me.zort.sqllib;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public abstract class JVM {
 
@@ -19,6 +22,33 @@ public abstract class JVM {
       return new JVM9();
   }
 
+  /**
+   * Checks whether this JVM supports virtual threads (Java 21+).
+   *
+   * @return True if virtual threads are supported.
+   */
+  public static boolean isVirtualThreadsSupported() {
+    return jvmVer() >= 21;
+  }
+
+  /**
+   * Creates an executor that runs each task in a new virtual thread.
+   *
+   * @return The executor.
+   * @throws UnsupportedOperationException If virtual threads are not supported.
+   */
+  public static ExecutorService newVirtualThreadPerTaskExecutor() {
+    if (!isVirtualThreadsSupported()) {
+      throw new UnsupportedOperationException("Virtual threads require Java 21, running " + jvmVer());
+    }
+    try {
+      // Called reflectively, so the library still compiles for older releases.
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+      throw new UnsupportedOperationException("Virtual threads are not available.", e);
+    }
+  }
+
   private static int jvmVer() {
     String version = System.getProperty("java.version");
     if (version.startsWith("1.")) {
@@ -38,6 +38,15 @@ public final class SQLConnectionRegistry {
     return new ArrayList<>(CONNECTIONS);
   }
 
+  /**
+   * Logs the message to the connection owning provided JDBC connection.
+   *
+   * @param connection The JDBC connection.
+   * @param message    The message.
+   * @deprecated Looks the connection up in all active connections. Use
+   * {@link SQLDatabaseConnectionImpl#debug(java.util.function.Supplier)} on the owning connection.
+   */
+  @Deprecated
   public static void debug(Connection connection, String message) {
     find(connection)
             .filter(c -> c instanceof SQLDatabaseConnectionImpl)
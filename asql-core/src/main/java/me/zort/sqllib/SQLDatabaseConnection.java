@@ -7,15 +7,21 @@ import me.zort.sqllib.api.ObjectMapper;
 import me.zort.sqllib.api.Query;
 import me.zort.sqllib.api.SQLConnection;
 import me.zort.sqllib.api.cache.CacheManager;
+import me.zort.sqllib.api.data.BatchQueryResult;
 import me.zort.sqllib.api.data.QueryResult;
 import me.zort.sqllib.api.data.QueryRowsResult;
 import me.zort.sqllib.api.data.Row;
+import me.zort.sqllib.api.listener.QueryEvent;
+import me.zort.sqllib.api.listener.QueryListener;
 import me.zort.sqllib.api.model.SchemaSynchronizer;
 import me.zort.sqllib.api.model.TableSchema;
 import me.zort.sqllib.api.model.TableSchemaBuilder;
 import me.zort.sqllib.cache.ExpireWriteCacheManager;
+import me.zort.sqllib.cache.StatementCache;
 import me.zort.sqllib.internal.factory.SQLConnectionFactory;
+import me.zort.sqllib.internal.impl.BoundedExecutor;
 import me.zort.sqllib.internal.impl.QueryResultImpl;
+import me.zort.sqllib.internal.impl.ResultSetPublisher;
 import me.zort.sqllib.internal.query.*;
 import me.zort.sqllib.internal.query.part.SetStatement;
 import me.zort.sqllib.mapping.MappingProvider;
@@ -29,9 +35,18 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import static me.zort.sqllib.SQLConnectionRegistry.registerConnection;
 import static me.zort.sqllib.util.ExceptionsUtility.runCatching;
@@ -53,6 +68,9 @@ public abstract class SQLDatabaseConnection extends MappingProvider implements S
   private SQLException lastError = null;
   @Getter
   private int errorCount = 0;
+  private final transient AtomicReference<Executor> asyncExecutor = new AtomicReference<>();
+  // Copied on write, so firing listeners doesn't allocate
+  private final transient AtomicReference<QueryListener[]> queryListeners = new AtomicReference<>(new QueryListener[0]);
 
   public SQLDatabaseConnection(final @NotNull SQLConnectionFactory connectionFactory) {
     super();
@@ -143,6 +161,42 @@ public abstract class SQLDatabaseConnection extends MappingProvider implements S
 
   public abstract QueryRowsResult<Row> query(String query);
 
+  /**
+   * Performs new query and returns a stream of mapped rows, which are read
+   * from the database as the stream is consumed. The stream must be closed
+   * after use to release the underlying cursor.
+   *
+   * @param query     The query to use while constructing query string.
+   * @param typeClass Type class of object which will be instantiated and
+   *                  populated with column values.
+   * @param <T>       Type of objects in result.
+   * @return Stream of row objects.
+   */
+  public abstract <T> Stream<T> stream(Query query, Class<T> typeClass);
+
+  public abstract Stream<Row> stream(Query query);
+
+  /**
+   * Returns a publisher of mapped rows. The query is executed for each
+   * subscriber once it requests rows, and rows are read from the result set
+   * only as they are requested, {@link me.zort.sqllib.api.ISQLDatabaseOptions#getFetchSize()}
+   * rows per round trip. The result set is closed on completion, error or cancellation.
+   * <p>
+   * Rows are read and published on the async executor of this connection,
+   * see {@link SQLDatabaseConnection#setAsyncExecutor(Executor)}.
+   *
+   * @param query     The query to use while constructing query string.
+   * @param typeClass Type class of object which will be instantiated and
+   *                  populated with column values.
+   * @param <T>       Type of objects in result.
+   * @return Publisher of row objects.
+   */
+  public <T> Flow.Publisher<T> publish(final @NotNull Query query, final @NotNull Class<T> typeClass) {
+    Objects.requireNonNull(query, "Query cannot be null!");
+    Objects.requireNonNull(typeClass, "Type class cannot be null!");
+    return new ResultSetPublisher<>(() -> stream(query, typeClass), getAsyncExecutor());
+  }
+
   @Beta
   @Nullable
   public abstract ResultSet queryRaw(Query query) throws SQLException;
@@ -161,6 +215,118 @@ public abstract class SQLDatabaseConnection extends MappingProvider implements S
 
   public abstract QueryResult exec(String query);
 
+  /**
+   * Performs new query on the async executor of this connection.
+   * See {@link SQLDatabaseConnection#query(Query, Class)}.
+   *
+   * @param query     The query to use while constructing query string.
+   * @param typeClass Type class of objects in result.
+   * @param <T>       Type of objects in result.
+   * @return Future completed with the result.
+   * @see SQLDatabaseConnection#setAsyncExecutor(Executor)
+   */
+  public <T> CompletableFuture<QueryRowsResult<T>> queryAsync(Query query, Class<T> typeClass) {
+    return CompletableFuture.supplyAsync(() -> query(query, typeClass), getAsyncExecutor());
+  }
+
+  public CompletableFuture<QueryRowsResult<Row>> queryAsync(Query query) {
+    return CompletableFuture.supplyAsync(() -> query(query), getAsyncExecutor());
+  }
+
+  /**
+   * Executes given query on the async executor of this connection.
+   * See {@link SQLDatabaseConnection#exec(Query)}.
+   *
+   * @param query Query to use for building query string.
+   * @return Future completed with the execution result.
+   */
+  public CompletableFuture<QueryResult> execAsync(Query query) {
+    return CompletableFuture.supplyAsync(() -> exec(query), getAsyncExecutor());
+  }
+
+  /**
+   * Registers a listener notified after each query and execution on this
+   * connection, with timings of its phases. Streams and batches are not reported.
+   *
+   * @param listener The listener.
+   */
+  public void addQueryListener(final @NotNull QueryListener listener) {
+    Objects.requireNonNull(listener, "Listener cannot be null!");
+    queryListeners.updateAndGet(listeners -> {
+      QueryListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+      updated[listeners.length] = listener;
+      return updated;
+    });
+  }
+
+  public void removeQueryListener(final @NotNull QueryListener listener) {
+    queryListeners.updateAndGet(listeners -> Arrays.stream(listeners)
+            .filter(l -> l != listener)
+            .toArray(QueryListener[]::new));
+  }
+
+  protected final boolean hasQueryListeners() {
+    return queryListeners.get().length > 0;
+  }
+
+  protected final void fireQueryListeners(final @NotNull QueryEvent event) {
+    for (QueryListener listener : queryListeners.get()) {
+      try {
+        listener.onQuery(event);
+      } catch (RuntimeException e) {
+        Logger.getGlobal().log(Level.WARNING, "Query listener " + listener + " failed.", e);
+      }
+    }
+  }
+
+  /**
+   * Sets executor used by async queries of this connection. The connection
+   * is not thread-safe, so the executor should not run more than one
+   * query at once.
+   *
+   * @param asyncExecutor The executor.
+   */
+  public void setAsyncExecutor(final @NotNull Executor asyncExecutor) {
+    this.asyncExecutor.set(Objects.requireNonNull(asyncExecutor, "Async executor cannot be null!"));
+  }
+
+  /**
+   * Returns executor used by async queries of this connection. By default,
+   * queries run on shared daemon threads, one at a time.
+   *
+   * @return The executor.
+   */
+  @NotNull
+  @Override
+  public Executor getAsyncExecutor() {
+    Executor executor = asyncExecutor.get();
+    if (executor == null) {
+      asyncExecutor.compareAndSet(null, new BoundedExecutor(BoundedExecutor.sharedExecutor(), 1));
+      executor = asyncExecutor.get();
+    }
+    return executor;
+  }
+
+  /**
+   * Inserts all provided objects into the table using batched
+   * statements, instead of one statement per object.
+   *
+   * @param table   The table to insert into.
+   * @param objects Objects to insert.
+   * @return Batch result with update count of each object.
+   */
+  public abstract BatchQueryResult insertAll(String table, Collection<?> objects);
+
+  /**
+   * Saves (inserts or updates) all provided objects into the table
+   * using batched statements, instead of one statement per object.
+   *
+   * @param table   The table to save into.
+   * @param objects Objects to save.
+   * @return Batch result with update count of each object.
+   */
+  public abstract BatchQueryResult saveAll(String table, Collection<?> objects);
+
   @ApiStatus.Experimental
   public abstract Transaction beginTransaction();
 
@@ -179,6 +345,14 @@ public abstract class SQLDatabaseConnection extends MappingProvider implements S
   @ApiStatus.Experimental
   public abstract void enableCaching(CacheManager cacheManager);
 
+  /**
+   * Returns the prepared statement cache of this connection.
+   * The cache size is configured using {@link me.zort.sqllib.api.ISQLDatabaseOptions#setStatementCacheSize(int)}.
+   *
+   * @return The statement cache.
+   */
+  public abstract StatementCache getStatementCache();
+
   public abstract boolean isTransactionActive();
 
   public abstract boolean isLogSqlErrors();
@@ -242,14 +416,12 @@ public abstract class SQLDatabaseConnection extends MappingProvider implements S
     DefsVals defsVals = getObjectMapper().serializeValues(obj);
     if (defsVals == null) return null;
     String[] defs = defsVals.getDefs();
-    AtomicReference<Object>[] vals = defsVals.getVals();
+    Object[] values = defsVals.getValues();
     UpsertQuery upsertQuery = upsert().into(null, defs);
-    for (AtomicReference<Object> wrapper : vals) {
-      upsertQuery.appendVal(wrapper.get());
-    }
+    upsertQuery.values(values);
     SetStatement<InsertQuery> setStatement = upsertQuery.onDuplicateKey();
     for (int i = 0; i < defs.length; i++) {
-      setStatement.and(defs[i], vals[i].get());
+      setStatement.and(defs[i], values[i]);
     }
 
     return (UpsertQuery) setStatement.getAncestor();
@@ -259,10 +431,7 @@ public abstract class SQLDatabaseConnection extends MappingProvider implements S
     DefsVals defsVals = getObjectMapper().serializeValues(obj);
     if (defsVals == null) return new QueryResultImpl(false);
 
-    InsertQuery query = insert().into(table, defsVals.getDefs());
-    for (AtomicReference<Object> valueWrapper : defsVals.getVals()) {
-      query.appendVal(valueWrapper.get());
-    }
+    InsertQuery query = insert().into(table, defsVals.getDefs()).values(defsVals.getValues());
 
     return query.execute();
   }
@@ -319,6 +488,7 @@ public abstract class SQLDatabaseConnection extends MappingProvider implements S
   @Override
   public final void disconnect() {
     if (!isConnected()) return;
+    getStatementCache().clear();
     try {
       connection.close();
       lastError = null;
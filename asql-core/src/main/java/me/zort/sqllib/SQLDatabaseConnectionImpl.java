@@ -11,24 +11,35 @@ import me.zort.sqllib.api.ObjectMapper;
 import me.zort.sqllib.api.Query;
 import me.zort.sqllib.api.StatementFactory;
 import me.zort.sqllib.api.cache.CacheManager;
+import me.zort.sqllib.api.DefsVals;
+import me.zort.sqllib.api.data.BatchQueryResult;
 import me.zort.sqllib.api.data.QueryResult;
 import me.zort.sqllib.api.data.QueryRowsResult;
 import me.zort.sqllib.api.data.Row;
+import me.zort.sqllib.api.listener.QueryEvent;
 import me.zort.sqllib.api.model.SchemaSynchronizer;
 import me.zort.sqllib.api.model.TableSchema;
 import me.zort.sqllib.api.model.TableSchemaBuilder;
 import me.zort.sqllib.api.options.NamingStrategy;
+import me.zort.sqllib.cache.StatementCache;
 import me.zort.sqllib.internal.Defaults;
 import me.zort.sqllib.internal.factory.SQLConnectionFactory;
 import me.zort.sqllib.internal.fieldResolver.ConstructorParameterResolver;
 import me.zort.sqllib.internal.fieldResolver.LinkedOneFieldResolver;
 import me.zort.sqllib.internal.impl.DefaultObjectMapper;
 import me.zort.sqllib.internal.impl.QueryResultImpl;
+import me.zort.sqllib.internal.impl.QueryTrace;
+import me.zort.sqllib.internal.impl.ResultRowReader;
+import me.zort.sqllib.internal.impl.ResultSetIterator;
+import me.zort.sqllib.internal.impl.SlowQueryLog;
+import me.zort.sqllib.internal.query.QueryDetails;
+import me.zort.sqllib.internal.query.QueryNode;
 import me.zort.sqllib.model.SQLSchemaSynchronizer;
 import me.zort.sqllib.model.builder.DatabaseSchemaBuilder;
 import me.zort.sqllib.model.builder.EntitySchemaBuilder;
 import me.zort.sqllib.pool.PooledSQLDatabaseConnection;
 import me.zort.sqllib.transaction.Transaction;
+import me.zort.sqllib.util.Pair;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -36,9 +47,12 @@ import org.jetbrains.annotations.Nullable;
 import javax.sql.rowset.CachedRowSet;
 import javax.sql.rowset.RowSetProvider;
 import java.sql.*;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Main database client object implementation.
@@ -52,7 +66,9 @@ public class SQLDatabaseConnectionImpl extends PooledSQLDatabaseConnection {
 
   @NotNull
   static SQLDatabaseOptions defaultOptions() {
-    return new SQLDatabaseOptions(DEFAULT_AUTO_RECONNECT, DEFAULT_DEBUG, DEFAULT_LOG_SQL_ERRORS, DEFAULT_NAMING_STRATEGY, DEFAULT_GSON);
+    return new SQLDatabaseOptions(DEFAULT_AUTO_RECONNECT, DEFAULT_DEBUG, DEFAULT_LOG_SQL_ERRORS, DEFAULT_NAMING_STRATEGY, DEFAULT_GSON,
+            DEFAULT_STATEMENT_CACHE_SIZE, DEFAULT_FETCH_SIZE, DEFAULT_BATCH_SIZE, DEFAULT_SLOW_QUERY_THRESHOLD,
+            false, new HashSet<>());
   }
 
   // --***-- Default Constants --***--
@@ -63,6 +79,10 @@ public class SQLDatabaseConnectionImpl extends PooledSQLDatabaseConnection {
   public static final boolean DEFAULT_LOG_SQL_ERRORS = Defaults.DEFAULT_LOG_SQL_ERRORS;
   public static final NamingStrategy DEFAULT_NAMING_STRATEGY = Defaults.DEFAULT_NAMING_STRATEGY;
   public static final Gson DEFAULT_GSON = Defaults.DEFAULT_GSON;
+  public static final int DEFAULT_STATEMENT_CACHE_SIZE = Defaults.DEFAULT_STATEMENT_CACHE_SIZE;
+  public static final int DEFAULT_FETCH_SIZE = Defaults.DEFAULT_FETCH_SIZE;
+  public static final int DEFAULT_BATCH_SIZE = Defaults.DEFAULT_BATCH_SIZE;
+  public static final long DEFAULT_SLOW_QUERY_THRESHOLD = Defaults.DEFAULT_SLOW_QUERY_THRESHOLD;
 
   // --***-- Options & Utilities --***--
 
@@ -71,6 +91,11 @@ public class SQLDatabaseConnectionImpl extends PooledSQLDatabaseConnection {
   @Getter
   private transient ObjectMapper objectMapper;
   private transient CacheManager cacheManager;
+  @Getter
+  private final transient StatementCache statementCache;
+  // Reused for queries while there are query listeners
+  private final transient QueryTrace trace = new QueryTrace();
+  private final transient SlowQueryLog slowQueryLog = new SlowQueryLog();
   @Setter
   private transient Logger logger;
   @Getter(onMethod_ = {@Nullable, @ApiStatus.Experimental})
@@ -97,6 +122,7 @@ public class SQLDatabaseConnectionImpl extends PooledSQLDatabaseConnection {
     super(connectionFactory);
     this.options = options == null ? defaultOptions() : options;
     this.objectMapper = new DefaultObjectMapper(this);
+    this.statementCache = new StatementCache(this.options.getStatementCacheSize());
     this.transaction = null;
     this.logger = Logger.getGlobal();
 
@@ -248,14 +274,23 @@ public class SQLDatabaseConnectionImpl extends PooledSQLDatabaseConnection {
     Objects.requireNonNull(query);
     Objects.requireNonNull(typeClass);
 
-    QueryRowsResult<Row> resultRows = query(query.getAncestor());
-    QueryRowsResult<T> result = new QueryRowsResult<>(resultRows.isSuccessful());
+    QueryTrace trace = startTrace(QueryEvent.Kind.QUERY);
+    try {
+      QueryRowsResult<Row> resultRows = query(query.getAncestor(), false, trace);
+      QueryRowsResult<T> result = new QueryRowsResult<>(resultRows.isSuccessful());
 
-    for (Row row : resultRows) {
-      Optional.ofNullable(objectMapper.deserializeValues(row, typeClass))
-              .ifPresent(result::add);
+      // Linked objects of all rows are fetched at once, instead of one query per row.
+      try (LinkedOneFieldResolver.Prefetch ignored = LinkedOneFieldResolver.prefetch(this, typeClass, resultRows)) {
+        for (Row row : resultRows) {
+          Optional.ofNullable(objectMapper.deserializeValues(row, typeClass))
+                  .ifPresent(result::add);
+        }
+      }
+      if (trace != null) trace.mapped();
+      return result;
+    } finally {
+      finishTrace(trace);
     }
-    return result;
   }
 
   /**
@@ -266,7 +301,12 @@ public class SQLDatabaseConnectionImpl extends PooledSQLDatabaseConnection {
   @NotNull
   @Override
   public QueryRowsResult<Row> query(final @NotNull Query query) {
-    return query(query, false);
+    QueryTrace trace = startTrace(QueryEvent.Kind.QUERY);
+    try {
+      return query(query, false, trace);
+    } finally {
+      finishTrace(trace);
+    }
   }
 
   public QueryRowsResult<Row> query(final @NotNull String query) {
@@ -275,30 +315,32 @@ public class SQLDatabaseConnectionImpl extends PooledSQLDatabaseConnection {
 
   @SuppressWarnings("unchecked")
   @NotNull
-  QueryRowsResult<Row> query(final @NotNull Query query, boolean isRetry) {
+  QueryRowsResult<Row> query(final @NotNull Query query, boolean isRetry, @Nullable QueryTrace trace) {
     Objects.requireNonNull(query);
     if (!handleAutoReconnect()) {
+      if (trace != null) trace.failed(null);
       return new QueryRowsResult<>(false, "Cannot connect to database!");
     }
 
     QueryResult cachedResult = cacheManager.get(query, false);
     if (cachedResult instanceof QueryRowsResult) {
+      if (trace != null) trace.cached();
       return (QueryRowsResult<Row>) cachedResult;
     }
 
-    try (PreparedStatement stmt = buildStatement(query);
-         ResultSet resultSet = stmt.executeQuery()) {
+    PreparedStatement stmt = null;
+    try {
+      stmt = buildStatement(query, statementCache, trace);
+      if (trace != null) trace.prepared();
       QueryRowsResult<Row> result = new QueryRowsResult<>(true);
-      while (resultSet.next()) {
-        ResultSetMetaData meta = resultSet.getMetaData();
-        Row row = new Row();
-        for (int i = 1; i <= meta.getColumnCount(); i++) {
-          Object obj = resultSet.getObject(i);
-          if (obj instanceof String) obj = ((String) obj).replaceAll("''", "'");
-          row.put(meta.getColumnName(i), obj);
+      try (ResultSet resultSet = stmt.executeQuery()) {
+        if (trace != null) trace.executed();
+        ResultRowReader reader = ResultRowReader.of(resultSet.getMetaData());
+        while (resultSet.next()) {
+          result.add(reader.read(resultSet));
         }
-        result.add(row);
       }
+      if (trace != null) trace.read(result.size());
 
       cacheManager.set(query, result);
       debug(result);
@@ -306,14 +348,103 @@ public class SQLDatabaseConnectionImpl extends PooledSQLDatabaseConnection {
     } catch (SQLException e) {
       if (!isRetry && e.getMessage().contains("database connection closed")) {
         reconnect();
-        return query(query, true);
+        return query(query, true, trace);
       }
 
+      if (trace != null) trace.failed(e);
       logSqlError(e);
       notifyHandlers(Code.QUERY_FATAL);
       query.errorSignal(e);
       return new QueryRowsResult<>(false, e.getMessage());
+    } finally {
+      statementCache.release(stmt);
+    }
+  }
+
+  /**
+   * Performs new query and returns a stream of rows mapped to the specified type
+   * using {@link ObjectMapper}. Unlike {@link SQLDatabaseConnection#query(Query, Class)},
+   * rows are not loaded into memory at once, but read and mapped as the stream
+   * is consumed, fetching {@link ISQLDatabaseOptions#getFetchSize()} rows at a time.
+   * <p>
+   * The stream holds an open cursor and must be closed after use, ideally
+   * using try-with-resources:
+   * <pre>
+   * try (Stream&lt;Player&gt; players = connection.stream(select().from("players"), Player.class)) {
+   *   players.forEach(...);
+   * }
+   * </pre>
+   * Please note that some drivers (MySQL) don't allow running other queries
+   * on the same connection until the stream is closed.
+   *
+   * @param query     The query to use while constructing query string.
+   * @param typeClass Type class of object which will be instantiated and
+   *                  populated with column values.
+   * @param <T>       Type of objects in result.
+   * @return Stream of row objects.
+   * @throws RuntimeException If the query cannot be executed.
+   */
+  @NotNull
+  @Override
+  public <T> Stream<T> stream(final @NotNull Query query, final @NotNull Class<T> typeClass) {
+    Objects.requireNonNull(typeClass);
+
+    return stream(query)
+            .map(row -> objectMapper.deserializeValues(row, typeClass))
+            .filter(Objects::nonNull);
+  }
+
+  /**
+   * Performs new query and returns a stream of rows, see
+   * {@link SQLDatabaseConnectionImpl#stream(Query, Class)}.
+   *
+   * @param query The query to use
+   * @return Stream of rows.
+   * @throws RuntimeException If the query cannot be executed.
+   */
+  @NotNull
+  @Override
+  public Stream<Row> stream(final @NotNull Query query) {
+    Objects.requireNonNull(query);
+    if (!handleAutoReconnect()) {
+      throw new IllegalStateException("Cannot connect to database!");
+    }
+
+    PreparedStatement stmt = null;
+    try {
+      // Statement stays open until the stream is closed, so it's
+      // never shared through the statement cache.
+      stmt = buildStatement(query, null);
+      int fetchSize = resolveFetchSize(stmt.getConnection());
+      if (fetchSize != 0) stmt.setFetchSize(fetchSize);
+
+      ResultSet resultSet = stmt.executeQuery();
+      return new ResultSetIterator<>(stmt, resultSet, ResultRowReader.of(resultSet.getMetaData())).stream();
+    } catch (SQLException e) {
+      if (stmt != null) {
+        try {
+          stmt.close();
+        } catch (SQLException ignored) {
+        }
+      }
+      logSqlError(e);
+      notifyHandlers(Code.QUERY_FATAL);
+      query.errorSignal(e);
+      throw new RuntimeException(e);
+    }
+  }
+
+  private int resolveFetchSize(Connection connection) throws SQLException {
+    int fetchSize = options.getFetchSize();
+    if (fetchSize <= 0) return 0;
+
+    String url = connection.getMetaData().getURL();
+    if (url != null && url.startsWith("jdbc:mysql:") && !url.contains("useCursorFetch=true")) {
+      // MySQL Connector/J reads whole result into memory unless
+      // it's told to stream rows one by one.
+      return Integer.MIN_VALUE;
     }
+    return fetchSize;
   }
 
   /**
@@ -332,12 +463,14 @@ public class SQLDatabaseConnectionImpl extends PooledSQLDatabaseConnection {
     if (!handleAutoReconnect()) {
       return null;
     }
-    try (PreparedStatement stmt = buildStatement(query);
-         ResultSet resultSet = stmt.executeQuery()) {
+    PreparedStatement stmt = buildStatement(query);
+    try (ResultSet resultSet = stmt.executeQuery()) {
       // Create in-memory cached result set
       CachedRowSet cachedResultSet = RowSetProvider.newFactory().createCachedRowSet();
       cachedResultSet.populate(resultSet);
       return cachedResultSet;
+    } finally {
+      statementCache.release(stmt);
     }
   }
 
@@ -352,23 +485,39 @@ public class SQLDatabaseConnectionImpl extends PooledSQLDatabaseConnection {
    * about success state of the request.
    */
   public QueryResult exec(final @NotNull Query query) {
-    return exec(query, false);
+    QueryTrace trace = startTrace(QueryEvent.Kind.EXEC);
+    try {
+      return exec(query, false, trace);
+    } finally {
+      finishTrace(trace);
+    }
   }
 
   public QueryResult exec(final @NotNull String query) {
     return exec(() -> query);
   }
 
-  @NotNull QueryResult exec(final @NotNull Query query, boolean isRetry) {
+  @NotNull QueryResult exec(final @NotNull Query query, boolean isRetry, @Nullable QueryTrace trace) {
     if (!handleAutoReconnect()) {
+      if (trace != null) trace.failed(null);
       return new QueryResultImpl(false, "Cannot connect to database!");
     }
 
     QueryResult cachedResult = cacheManager.get(query, true);
-    if (cachedResult != null) return cachedResult;
+    if (cachedResult != null) {
+      if (trace != null) trace.cached();
+      return cachedResult;
+    }
 
-    try (PreparedStatement stmt = buildStatement(query)) {
+    PreparedStatement stmt = null;
+    try {
+      stmt = buildStatement(query, statementCache, trace);
+      if (trace != null) trace.prepared();
       stmt.execute();
+      if (trace != null) {
+        trace.executed();
+        trace.setRowCount(stmt.getUpdateCount());
+      }
       QueryResultImpl result = new QueryResultImpl(true);
       cacheManager.set(query, result);
       debug(result);
@@ -376,16 +525,182 @@ public class SQLDatabaseConnectionImpl extends PooledSQLDatabaseConnection {
     } catch (SQLException e) {
       if (!isRetry && e.getMessage().contains("database connection closed")) {
         reconnect();
-        return exec(query, true);
+        return exec(query, true, trace);
       }
 
+      if (trace != null) trace.failed(e);
       logSqlError(e);
       notifyHandlers(Code.QUERY_FATAL);
       query.errorSignal(e);
       return new QueryResultImpl(false, e.getMessage());
+    } finally {
+      statementCache.release(stmt);
     }
   }
 
+  /**
+   * Inserts all provided objects into the table using JDBC batches, sending
+   * at most {@link ISQLDatabaseOptions#getBatchSize()} rows at once. Objects are
+   * serialized using {@link ObjectMapper}, objects with the same set of columns
+   * share one statement.
+   * <p>
+   * If there is no active transaction, the batch is executed in its own
+   * transaction, so either all rows are inserted, or none.
+   * For MySQL, consider enabling rewriteBatchedStatements connection property.
+   *
+   * @param table   The table to insert into.
+   * @param objects Objects to insert.
+   * @return Batch result with update count of each object, in order.
+   */
+  @NotNull
+  @Override
+  public BatchQueryResult insertAll(final @NotNull String table, final @NotNull Collection<?> objects) {
+    return executeBatch(table, objects, (type, defs) -> buildInsertQuery(table, defs));
+  }
+
+  /**
+   * Saves (inserts or updates) all provided objects using JDBC batches,
+   * same as {@link SQLDatabaseConnectionImpl#insertAll(String, Collection)}, using
+   * INSERT ... ON DUPLICATE KEY UPDATE statements.
+   *
+   * @param table   The table to save into.
+   * @param objects Objects to save.
+   * @return Batch result with update count of each object, in order.
+   */
+  @NotNull
+  @Override
+  public BatchQueryResult saveAll(final @NotNull String table, final @NotNull Collection<?> objects) {
+    return executeBatch(table, objects, (type, defs) -> {
+      StringBuilder query = new StringBuilder(buildInsertQuery(table, defs)).append(" ON DUPLICATE KEY UPDATE ");
+      for (int i = 0; i < defs.size(); i++) {
+        if (i > 0) query.append(", ");
+        query.append(defs.get(i)).append(" = VALUES(").append(defs.get(i)).append(")");
+      }
+      return query.toString();
+    });
+  }
+
+  /**
+   * Serializes provided objects and executes them in batches, grouped by their
+   * type and columns. Each group uses one statement built by the query factory.
+   *
+   * @param table        The table.
+   * @param objects      Objects to serialize.
+   * @param queryFactory Factory of query strings for object type and its columns.
+   * @return Batch result with update count of each object, in order.
+   */
+  protected final BatchQueryResult executeBatch(final @NotNull String table,
+                                                final @NotNull Collection<?> objects,
+                                                final @NotNull BiFunction<Class<?>, List<String>, String> queryFactory) {
+    Objects.requireNonNull(table, "Table cannot be null!");
+    Objects.requireNonNull(objects, "Objects cannot be null!");
+
+    int[] updateCounts = new int[objects.size()];
+    Arrays.fill(updateCounts, Statement.EXECUTE_FAILED);
+
+    // Rows grouped by their type and columns, each group is one statement.
+    Map<List<Object>, BatchGroup> groups = new LinkedHashMap<>();
+    int index = 0;
+    for (Object obj : objects) {
+      DefsVals defsVals = objectMapper.serializeValues(obj);
+      if (defsVals == null) {
+        return new BatchQueryResult(false, "Cannot serialize object at index " + index + "!", updateCounts);
+      }
+      Object[] values = defsVals.getValues();
+      List<Object> key = new ArrayList<>(Arrays.asList(defsVals.getDefs()));
+      key.add(obj.getClass());
+      groups.computeIfAbsent(key, k -> new BatchGroup(obj.getClass(), Arrays.asList(defsVals.getDefs())))
+              .rows.add(new Pair<>(index++, values));
+    }
+
+    if (groups.isEmpty()) return new BatchQueryResult(updateCounts);
+    if (!handleAutoReconnect()) {
+      return new BatchQueryResult(false, "Cannot connect to database!", updateCounts);
+    }
+
+    Connection connection = getConnection();
+    boolean ownTransaction = false;
+    try {
+      ownTransaction = !isTransactionActive() && connection.getAutoCommit();
+      if (ownTransaction) connection.setAutoCommit(false);
+
+      int batchSize = Math.max(options.getBatchSize(), 1);
+      for (BatchGroup group : groups.values()) {
+        String query = queryFactory.apply(group.type, group.defs);
+        executeBatch(connection, query, group.rows, batchSize, updateCounts);
+      }
+
+      if (ownTransaction) connection.commit();
+      BatchQueryResult result = new BatchQueryResult(updateCounts);
+      debug(result);
+      return result;
+    } catch (SQLException e) {
+      if (ownTransaction) {
+        try {
+          connection.rollback();
+        } catch (SQLException ignored) {
+        }
+      }
+      logSqlError(e);
+      notifyHandlers(Code.QUERY_FATAL);
+      return new BatchQueryResult(false, e.getMessage(), updateCounts);
+    } finally {
+      if (ownTransaction) {
+        try {
+          connection.setAutoCommit(true);
+        } catch (SQLException ignored) {
+        }
+      }
+    }
+  }
+
+  private void executeBatch(Connection connection,
+                            String query,
+                            List<Pair<Integer, Object[]>> rows,
+                            int batchSize,
+                            int[] updateCounts) throws SQLException {
+    debug(() -> "Batch query: " + query + " (" + rows.size() + " rows)");
+    PreparedStatement stmt = statementCache.prepare(connection, query);
+    try {
+      int from = 0;
+      while (from < rows.size()) {
+        int to = Math.min(from + batchSize, rows.size());
+        for (int i = from; i < to; i++) {
+          QueryDetails.bind(stmt, rows.get(i).getSecond());
+          stmt.addBatch();
+        }
+        int[] counts;
+        try {
+          counts = stmt.executeBatch();
+        } catch (BatchUpdateException e) {
+          counts = e.getUpdateCounts();
+          copyUpdateCounts(counts, rows, from, updateCounts);
+          throw e;
+        }
+        copyUpdateCounts(counts, rows, from, updateCounts);
+        from = to;
+      }
+    } finally {
+      statementCache.release(stmt);
+    }
+  }
+
+  private static void copyUpdateCounts(int[] counts, List<Pair<Integer, Object[]>> rows, int from, int[] updateCounts) {
+    if (counts == null) return;
+    for (int i = 0; i < counts.length && from + i < rows.size(); i++) {
+      updateCounts[rows.get(from + i).getFirst()] = counts[i];
+    }
+  }
+
+  protected static String buildInsertQuery(String table, List<String> defs) {
+    StringBuilder placeholders = new StringBuilder();
+    for (int i = 0; i < defs.size(); i++) {
+      if (i > 0) placeholders.append(", ");
+      placeholders.append('?');
+    }
+    return String.format("INSERT INTO %s (%s) VALUES (%s)", table, String.join(", ", defs), placeholders);
+  }
+
   @ApiStatus.Experimental
   @SneakyThrows(SQLException.class)
   public final Transaction beginTransaction() {
@@ -436,7 +751,74 @@ public class SQLDatabaseConnectionImpl extends PooledSQLDatabaseConnection {
     if (options.isDebug()) logger.info(message);
   }
 
+  /**
+   * Logs message built by provided supplier if debug is enabled.
+   * The message is not built at all otherwise, so this can be used
+   * on hot paths.
+   *
+   * @param message Supplier of the message.
+   */
+  public void debug(Supplier<String> message) {
+    if (options.isDebug()) logger.info(message.get());
+  }
+
+  // Returns null if there is no listener and slow query log is disabled,
+  // so queries are not traced at all.
+  @Nullable
+  private QueryTrace startTrace(QueryEvent.Kind kind) {
+    if (!hasQueryListeners() && options.getSlowQueryThreshold() <= 0) return null;
+    if (trace.start(kind)) return trace;
+    // Query executed while another one is traced (e.g. by mapping).
+    QueryTrace nested = new QueryTrace();
+    nested.start(kind);
+    return nested;
+  }
+
+  private void finishTrace(@Nullable QueryTrace trace) {
+    if (trace == null) return;
+    trace.finish();
+    try {
+      long threshold = options.getSlowQueryThreshold();
+      if (threshold > 0 && trace.getTotalNanos() >= TimeUnit.MILLISECONDS.toNanos(threshold)) {
+        logSlowQuery(trace);
+      }
+      fireQueryListeners(trace);
+    } finally {
+      trace.release();
+    }
+  }
+
+  private void logSlowQuery(QueryTrace trace) {
+    String sql = trace.getSql();
+    List<String> plan = null;
+    if (options.isExplainSlowQueries()
+            && sql != null
+            && trace.getOutcome() != QueryEvent.Outcome.ERROR
+            && SlowQueryLog.isExplainable(sql)
+            && slowQueryLog.markExplained(trace.getFingerprint())) {
+      plan = explain(sql, trace.getParameters());
+    }
+    logger.warning(SlowQueryLog.describe(trace, options.getSlowQueryRedactedColumns(), plan));
+  }
+
+  // Runs directly on the connection, so the plan query is neither traced nor cached.
+  @Nullable
+  private List<String> explain(String sql, @Nullable Object[] parameters) {
+    Connection connection = getConnection();
+    if (connection == null) return null;
+    String prefix = this instanceof SQLiteDatabaseConnection ? "EXPLAIN QUERY PLAN " : "EXPLAIN ";
+    try (PreparedStatement statement = connection.prepareStatement(prefix + sql)) {
+      if (parameters != null) QueryDetails.bind(statement, parameters);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        return SlowQueryLog.readPlan(resultSet);
+      }
+    } catch (SQLException e) {
+      return Collections.singletonList("Not available: " + e.getMessage());
+    }
+  }
+
   private void debug(QueryResult result) {
+    if (!options.isDebug()) return;
     debug("Query result: " + result);
     if (result instanceof QueryRowsResult) {
       debug("Rows: " + ((QueryRowsResult<?>) result).size());
@@ -474,7 +856,7 @@ public class SQLDatabaseConnectionImpl extends PooledSQLDatabaseConnection {
   public TableSchemaBuilder getSchemaBuilder(String table) {
     return new DatabaseSchemaBuilder(q -> {
       try {
-        return buildStatement(() -> q);
+        return buildStatement(() -> q, null);
       } catch (SQLException e) {
         throw new RuntimeException(e);
       }
@@ -488,29 +870,62 @@ public class SQLDatabaseConnectionImpl extends PooledSQLDatabaseConnection {
     cloned.setNamingStrategy(options.getNamingStrategy());
     cloned.setGson(options.getGson());
     cloned.setAutoReconnect(options.isAutoReconnect());
+    cloned.setStatementCacheSize(options.getStatementCacheSize());
+    cloned.setFetchSize(options.getFetchSize());
+    cloned.setBatchSize(options.getBatchSize());
+    cloned.setSlowQueryThreshold(options.getSlowQueryThreshold());
+    cloned.setExplainSlowQueries(options.isExplainSlowQueries());
+    cloned.setSlowQueryRedactedColumns(new HashSet<>(options.getSlowQueryRedactedColumns()));
     return cloned;
   }
 
-  @SuppressWarnings("unchecked")
   private PreparedStatement buildStatement(Query query) throws SQLException {
-    StatementFactory<PreparedStatement> factory = new DefaultStatementFactory(query);
+    return buildStatement(query, statementCache);
+  }
+
+  // Statements built with cache need to be released using StatementCache#release.
+  private PreparedStatement buildStatement(Query query, @Nullable StatementCache cache) throws SQLException {
+    return buildStatement(query, cache, null);
+  }
+
+  @SuppressWarnings("unchecked")
+  private PreparedStatement buildStatement(Query query,
+                                           @Nullable StatementCache cache,
+                                           @Nullable QueryTrace trace) throws SQLException {
+    if (query instanceof QueryNode)
+      return ((QueryNode<?>) query).prepare(getConnection(), cache, this, trace);
+
+    StatementFactory<PreparedStatement> factory = new DefaultStatementFactory(query, cache, this, trace);
     if (query instanceof StatementFactory)
       factory = (StatementFactory<PreparedStatement>) query;
 
     return factory.prepare(getConnection());
   }
 
+  @RequiredArgsConstructor
+  private static final class BatchGroup {
+    private final Class<?> type;
+    private final List<String> defs;
+    private final List<Pair<Integer, Object[]>> rows = new ArrayList<>();
+  }
+
   @RequiredArgsConstructor
   static class DefaultStatementFactory implements StatementFactory<PreparedStatement> {
 
     private final Query query;
+    private final StatementCache cache;
+    private final SQLDatabaseConnectionImpl owner;
+    private final QueryTrace trace;
 
     @Override
     public PreparedStatement prepare(Connection connection) throws SQLException {
       String queryString = query.getAncestor().buildQuery();
+      if (trace != null) trace.built(queryString);
 
-      SQLConnectionRegistry.debug(connection, "Query: " + queryString);
-      return connection.prepareStatement(queryString);
+      owner.debug(() -> "Query: " + queryString);
+      return cache != null
+              ? cache.prepare(connection, queryString)
+              : connection.prepareStatement(queryString);
     }
   }
 
@@ -9,6 +9,9 @@ import me.zort.sqllib.api.options.NamingStrategy;
 import me.zort.sqllib.internal.Defaults;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.HashSet;
+import java.util.Set;
+
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
@@ -19,6 +22,18 @@ public final class SQLDatabaseOptions implements ISQLDatabaseOptions {
   private boolean logSqlErrors = true;
   private transient NamingStrategy namingStrategy = SQLDatabaseConnectionImpl.DEFAULT_NAMING_STRATEGY;
   private transient Gson gson = Defaults.DEFAULT_GSON;
+  // Max number of prepared statements cached per connection, 0 disables the cache
+  private int statementCacheSize = Defaults.DEFAULT_STATEMENT_CACHE_SIZE;
+  // Rows fetched at once by streamed queries, 0 leaves it to the driver
+  private int fetchSize = Defaults.DEFAULT_FETCH_SIZE;
+  // Max number of rows sent in one batch by insertAll
+  private int batchSize = Defaults.DEFAULT_BATCH_SIZE;
+  // Queries taking at least this many milliseconds are logged as slow, 0 disables the log
+  private long slowQueryThreshold = Defaults.DEFAULT_SLOW_QUERY_THRESHOLD;
+  // Whether to log query plan of each slow query once
+  private boolean explainSlowQueries = false;
+  // Columns whose bound values are hidden in the slow query log (case-insensitive)
+  private Set<String> slowQueryRedactedColumns = new HashSet<>();
 
   /**
    * Loads options from a connection.
@@ -33,6 +48,12 @@ public final class SQLDatabaseOptions implements ISQLDatabaseOptions {
     this.logSqlErrors = options.isLogSqlErrors();
     this.namingStrategy = options.getNamingStrategy();
     this.gson = options.getGson();
+    this.statementCacheSize = options.getStatementCacheSize();
+    this.fetchSize = options.getFetchSize();
+    this.batchSize = options.getBatchSize();
+    this.slowQueryThreshold = options.getSlowQueryThreshold();
+    this.explainSlowQueries = options.isExplainSlowQueries();
+    this.slowQueryRedactedColumns = new HashSet<>(options.getSlowQueryRedactedColumns());
   }
 
 }
@@ -3,6 +3,7 @@ package me.zort.sqllib;
 import me.zort.sqllib.api.DefsVals;
 import me.zort.sqllib.api.ISQLDatabaseOptions;
 import me.zort.sqllib.api.Query;
+import me.zort.sqllib.api.data.BatchQueryResult;
 import me.zort.sqllib.api.data.QueryResult;
 import me.zort.sqllib.api.data.QueryRowsResult;
 import me.zort.sqllib.api.data.Row;
@@ -18,8 +19,13 @@ import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Collection;
+import java.util.List;
 import java.util.function.Function;
 
 /**
@@ -30,6 +36,9 @@ import java.util.function.Function;
  */
 public class SQLiteDatabaseConnection extends SQLDatabaseConnectionImpl {
   private final SQLiteDatabaseConnection identity = this;
+  // INSERT ... ON CONFLICT DO UPDATE is supported since SQLite 3.24.0,
+  // detected on every connect.
+  private volatile boolean nativeUpsert = false;
 
   @SuppressWarnings("unused")
   public SQLiteDatabaseConnection(final @NotNull SQLConnectionFactory connectionFactory) {
@@ -50,6 +59,42 @@ public class SQLiteDatabaseConnection extends SQLDatabaseConnectionImpl {
       schemaSynchronizer.setColumnTypeAdjuster(new SQLiteColumnTypeAdjuster());
       schemaSynchronizer.setSeparateQueries(true);
     }
+    addCodeHandler(Code.CONNECTED, code -> detectNativeUpsert());
+  }
+
+  private void detectNativeUpsert() {
+    Connection connection = getConnection();
+    if (connection == null) return;
+    try {
+      String version = connection.getMetaData().getDatabaseProductVersion();
+      nativeUpsert = supportsNativeUpsert(version);
+      debug(() -> "SQLite version " + version + ", native upsert " + (nativeUpsert ? "enabled" : "disabled"));
+    } catch (SQLException e) {
+      nativeUpsert = false;
+    }
+  }
+
+  static boolean supportsNativeUpsert(@Nullable String version) {
+    if (version == null) return false;
+    String[] parts = version.trim().split("\\.");
+    try {
+      int major = Integer.parseInt(parts[0]);
+      int minor = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+      return major > 3 || (major == 3 && minor >= 24);
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns whether this connection saves objects using native
+   * INSERT ... ON CONFLICT DO UPDATE statements. This is false for SQLite
+   * versions older than 3.24.0, which select the row first instead.
+   *
+   * @return True if native upsert is used.
+   */
+  public boolean isNativeUpsert() {
+    return nativeUpsert;
   }
 
   /**
@@ -57,7 +102,8 @@ public class SQLiteDatabaseConnection extends SQLDatabaseConnectionImpl {
    * as stated in {@link SQLDatabaseConnection#save(String, Object)}.
    * <p>
    * Object needs to have {@link me.zort.sqllib.internal.annotation.PrimaryKey} annotation
-   * set to determine which column is a primary key.
+   * set to determine which column is a primary key. On SQLite 3.24.0 and newer,
+   * this results in single INSERT ... ON CONFLICT DO UPDATE statement.
    *
    * @param table Table to save into.
    * @param obj   The object to save.
@@ -69,38 +115,18 @@ public class SQLiteDatabaseConnection extends SQLDatabaseConnectionImpl {
     DefsVals defsVals = getObjectMapper().serializeValues(obj);
     if (defsVals == null) throw new IllegalArgumentException("Cannot create save query! (defsVals == null)");
     String[] defs = defsVals.getDefs();
-    AtomicReference<Object>[] vals = defsVals.getVals();
+    Object[] values = defsVals.getValues();
 
-    debug("Saving object into table " + table + " with definitions " + Arrays.toString(defs) + " and values " + Arrays.toString(vals));
+    debug(() -> "Saving object into table " + table + " with definitions " + Arrays.toString(defs) + " and values " + Arrays.toString(values));
 
+    List<String> primaryKeys = primaryKeyColumns(obj.getClass(), Arrays.asList(defs));
     PrimaryKey primaryKey = null;
-    for (Field field : obj.getClass().getDeclaredFields()) {
-      if (Modifier.isTransient(field.getModifiers())) {
-        continue;
-      }
-      if (field.isAnnotationPresent(me.zort.sqllib.internal.annotation.PrimaryKey.class)) {
-        String colName = getOptions().getNamingStrategy().fieldNameToColumn(field.getName());
-        //int index = Arrays.binarySearch(defs, colName);
-        int index = -1;
-        int i = 0;
-        for (String def : defs) {
-          if (def.equals(colName)) {
-            index = i;
-            break;
-          }
-          i++;
-        }
-        if (index >= 0) {
-          primaryKey = new PrimaryKey(colName, vals[index].get() instanceof String
-                  ? (String) vals[index].get() : String.valueOf(vals[index].get()));
-          break;
-        }
-      }
-    }
-    InsertQuery insert = insert().into(table, defs);
-    for (AtomicReference<Object> val : vals) {
-      insert.appendVal(val.get());
+    if (!primaryKeys.isEmpty()) {
+      int index = Arrays.asList(defs).indexOf(primaryKeys.get(0));
+      primaryKey = new PrimaryKey(primaryKeys.get(0), values[index] instanceof String
+              ? (String) values[index] : String.valueOf(values[index]));
     }
+    InsertQuery insert = insert().into(table, defs).values(values);
     Function<QueryNode<?>, UpsertQuery> decor;
     decor = node -> new UpsertQuery(identity) {
       @Override
@@ -122,20 +148,30 @@ public class SQLiteDatabaseConnection extends SQLDatabaseConnectionImpl {
         notAvailable();
         return null;
       }
+      @Override
+      public UpsertQuery row(Object... values) {
+        notAvailable();
+        return null;
+      }
       private void notAvailable() {
         throw new UnsupportedOperationException("You can't modify upsert query in SQLite mode!");
       }
     };
 
     if (primaryKey == null) {
-      debug("No primary key found for object " + obj.getClass().getName() + ", so we can't build update condition.");
-      debug("Performing insert query instead: " + insert.buildQuery());
+      debug(() -> "No primary key found for object " + obj.getClass().getName() + ", so we can't build update condition.");
+      debug(() -> "Performing insert query instead: " + insert.buildQuery());
+      return decor.apply(insert);
+    }
+
+    if (nativeUpsert) {
+      insert.then(buildConflictClause(primaryKeys, Arrays.asList(defs)));
       return decor.apply(insert);
     }
 
     SetStatement<UpdateQuery> setStmt = update().table(table).set();
     for (int i = 0; i < defs.length; i++) {
-      setStmt.and(defs[i], vals[i].get());
+      setStmt.and(defs[i], values[i]);
     }
     UpdateQuery update = setStmt.also()
             .where().isEqual(primaryKey.getColumn(), primaryKey.getValue())
@@ -143,6 +179,68 @@ public class SQLiteDatabaseConnection extends SQLDatabaseConnectionImpl {
     return decor.apply(upsert(table, primaryKey, insert, update));
   }
 
+  /**
+   * Saves all provided objects using batched INSERT ... ON CONFLICT DO UPDATE
+   * statements. On SQLite versions without native upsert support, objects
+   * are saved one by one using {@link SQLiteDatabaseConnection#save(String, Object)}.
+   *
+   * @param table   The table to save into.
+   * @param objects Objects to save.
+   * @return Batch result with update count of each object, in order.
+   */
+  @NotNull
+  @Override
+  public BatchQueryResult saveAll(final @NotNull String table, final @NotNull Collection<?> objects) {
+    if (nativeUpsert) {
+      return executeBatch(table, objects, (type, defs) -> {
+        List<String> primaryKeys = primaryKeyColumns(type, defs);
+        String insert = buildInsertQuery(table, defs);
+        return primaryKeys.isEmpty() ? insert : insert + buildConflictClause(primaryKeys, defs);
+      });
+    }
+
+    int[] updateCounts = new int[objects.size()];
+    Arrays.fill(updateCounts, Statement.EXECUTE_FAILED);
+    int index = 0;
+    for (Object obj : objects) {
+      QueryResult result = exec(save(table, obj));
+      if (!result.isSuccessful()) {
+        return new BatchQueryResult(false, result.getRejectMessage(), updateCounts);
+      }
+      updateCounts[index++] = Statement.SUCCESS_NO_INFO;
+    }
+    return new BatchQueryResult(updateCounts);
+  }
+
+  // Primary key columns of provided type, which are present in the definitions.
+  private List<String> primaryKeyColumns(Class<?> type, List<String> defs) {
+    List<String> primaryKeys = new ArrayList<>();
+    for (Field field : type.getDeclaredFields()) {
+      if (Modifier.isTransient(field.getModifiers())) {
+        continue;
+      }
+      if (field.isAnnotationPresent(me.zort.sqllib.internal.annotation.PrimaryKey.class)) {
+        String colName = getOptions().getNamingStrategy().fieldNameToColumn(field.getName());
+        if (defs.contains(colName)) primaryKeys.add(colName);
+      }
+    }
+    return primaryKeys;
+  }
+
+  private static String buildConflictClause(List<String> primaryKeys, List<String> defs) {
+    StringBuilder clause = new StringBuilder(" ON CONFLICT(")
+            .append(String.join(", ", primaryKeys))
+            .append(") DO ");
+    boolean first = true;
+    for (String def : defs) {
+      if (primaryKeys.contains(def)) continue;
+      clause.append(first ? "UPDATE SET " : ", ").append(def).append(" = excluded.").append(def);
+      first = false;
+    }
+    if (first) clause.append("NOTHING");
+    return clause.toString();
+  }
+
   /**
    * Builds an upsert query for defined table and primary key.
    * This returns either a provided insert or update query depending
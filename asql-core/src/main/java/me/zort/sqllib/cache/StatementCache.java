@@ -0,0 +1,193 @@
+package me.zort.sqllib.cache;
+
+import me.zort.sqllib.util.Pair;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded LRU cache of prepared statements bound to a single
+ * JDBC connection. Statements are keyed by their final SQL text
+ * (the one with question marks).
+ * <p>
+ * Statements are borrowed from the cache, so one statement is never
+ * used by two callers at once. After execution, statement is returned
+ * using {@link StatementCache#release(PreparedStatement)}, which clears
+ * its parameters instead of closing it.
+ */
+public final class StatementCache {
+
+  private final int maxSize;
+  private final LinkedHashMap<String, PreparedStatement> idle;
+  private final Map<PreparedStatement, Pair<String, Connection>> borrowed;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  // Guards idle and owner
+  private final ReentrantLock lock = new ReentrantLock();
+  private Connection owner = null;
+
+  /**
+   * Creates a new statement cache.
+   *
+   * @param maxSize Max number of idle statements held, zero or less
+   *                disables the cache.
+   */
+  public StatementCache(int maxSize) {
+    this.maxSize = maxSize;
+    this.idle = new LinkedHashMap<>(16, 0.75f, true);
+    this.borrowed = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Returns a prepared statement for provided query string, either
+   * from the cache, or a newly prepared one.
+   *
+   * @param connection The connection to prepare the statement on.
+   * @param sql        Final query string.
+   * @return The prepared statement.
+   * @throws SQLException If the statement cannot be prepared.
+   */
+  @NotNull
+  public PreparedStatement prepare(final @NotNull Connection connection, final @NotNull String sql) throws SQLException {
+    if (!isEnabled()) {
+      return connection.prepareStatement(sql);
+    }
+    PreparedStatement statement;
+    lock.lock();
+    try {
+      if (owner != connection) {
+        // Statements belong to the connection that prepared them.
+        closeIdle();
+        owner = connection;
+      }
+      statement = idle.remove(sql);
+    } finally {
+      lock.unlock();
+    }
+    if (statement != null && !statement.isClosed()) {
+      hits.incrementAndGet();
+    } else {
+      misses.incrementAndGet();
+      statement = connection.prepareStatement(sql);
+    }
+    borrowed.put(statement, new Pair<>(sql, connection));
+    return statement;
+  }
+
+  /**
+   * Returns a statement obtained by {@link StatementCache#prepare(Connection, String)}
+   * back to the cache. Statements not known to this cache are closed.
+   *
+   * @param statement The statement to release, can be null.
+   */
+  public void release(final @Nullable PreparedStatement statement) {
+    if (statement == null) return;
+
+    Pair<String, Connection> borrow = borrowed.remove(statement);
+    try {
+      if (borrow == null || statement.isClosed()) {
+        statement.close();
+        return;
+      }
+      statement.clearParameters();
+      statement.clearBatch();
+    } catch (SQLException e) {
+      closeQuietly(statement);
+      return;
+    }
+    String sql = borrow.getFirst();
+    PreparedStatement evicted = null;
+    lock.lock();
+    try {
+      if (owner != borrow.getSecond() || idle.containsKey(sql)) {
+        evicted = statement;
+      } else {
+        idle.put(sql, statement);
+        if (idle.size() > maxSize) {
+          Iterator<PreparedStatement> iterator = idle.values().iterator();
+          evicted = iterator.next();
+          iterator.remove();
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    closeQuietly(evicted);
+  }
+
+  /**
+   * Closes all idle statements in the cache. This is called
+   * whenever the underlying connection is opened or closed.
+   */
+  public void clear() {
+    lock.lock();
+    try {
+      closeIdle();
+      owner = null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public boolean isEnabled() {
+    return maxSize > 0;
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public int size() {
+    lock.lock();
+    try {
+      return idle.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  public Set<String> getCachedQueries() {
+    lock.lock();
+    try {
+      return new HashSet<>(idle.keySet());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void closeIdle() {
+    List<PreparedStatement> statements = new ArrayList<>(idle.values());
+    idle.clear();
+    statements.forEach(StatementCache::closeQuietly);
+  }
+
+  private static void closeQuietly(@Nullable PreparedStatement statement) {
+    if (statement == null) return;
+    try {
+      statement.close();
+    } catch (SQLException ignored) {
+    }
+  }
+
+}
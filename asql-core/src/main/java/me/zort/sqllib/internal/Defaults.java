@@ -12,6 +12,10 @@ public final class Defaults {
   public static final boolean DEFAULT_DEBUG = false;
   public static final boolean DEFAULT_LOG_SQL_ERRORS = true;
   public static final NamingStrategy DEFAULT_NAMING_STRATEGY = new SnakeCaseNamingStrategy('_');
+  public static final int DEFAULT_STATEMENT_CACHE_SIZE = 0;
+  public static final int DEFAULT_FETCH_SIZE = 1000;
+  public static final int DEFAULT_BATCH_SIZE = 500;
+  public static final long DEFAULT_SLOW_QUERY_THRESHOLD = 0L;
 
   public static final Gson DEFAULT_GSON = new GsonBuilder()
           .enableComplexMapKeySerialization()
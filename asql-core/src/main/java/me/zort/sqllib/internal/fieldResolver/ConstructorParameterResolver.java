@@ -7,6 +7,8 @@ import me.zort.sqllib.util.Validator;
 import org.jetbrains.annotations.ApiStatus;
 
 import java.lang.reflect.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -15,6 +17,9 @@ public class ConstructorParameterResolver implements ObjectMapper.FieldValueReso
 
   private static final Pattern argumentPattern = Pattern.compile("(arg)(\\d+)");
 
+  // Field names resolved for unnamed parameters
+  private final Map<Parameter, String> fieldNames = new ConcurrentHashMap<>();
+
   @Override
   public Object obtainValue(
           SQLConnection connection,
@@ -28,15 +33,20 @@ public class ConstructorParameterResolver implements ObjectMapper.FieldValueReso
       return null;
     }
 
-    Parameter p = (Parameter) element;
+    String resolved = fieldNames.computeIfAbsent((Parameter) element, this::resolveFieldName);
+    return row.get(resolved.isEmpty() ? fieldName : resolved);
+  }
+
+  // Returns empty string if the parameter name is not an argument placeholder.
+  private String resolveFieldName(Parameter p) {
     Matcher matcher = argumentPattern.matcher(p.getName());
 
     if (matcher.matches()) {
       try {
-        Field[] fields = ((Constructor) p.getDeclaringExecutable()).getDeclaringClass().getDeclaredFields();
+        Field[] fields = p.getDeclaringExecutable().getDeclaringClass().getDeclaredFields();
         int index = Integer.parseInt(matcher.group(2));
         if (index >= fields.length)
-          return null;
+          return "";
 
         int i = -1;
         for (Field field : fields) {
@@ -44,14 +54,13 @@ public class ConstructorParameterResolver implements ObjectMapper.FieldValueReso
             i++;
 
           if (i == index) {
-            fieldName = field.getName();
-            break;
+            return field.getName();
           }
         }
       } catch (NumberFormatException ignored) {
       }
     }
 
-    return row.get(fieldName);
+    return "";
   }
 }
@@ -1,26 +1,48 @@
 package me.zort.sqllib.internal.fieldResolver;
 
+import me.zort.sqllib.SQLDatabaseConnection;
 import me.zort.sqllib.SQLDatabaseConnectionImpl;
 import me.zort.sqllib.api.ObjectMapper;
 import me.zort.sqllib.api.SQLConnection;
+import me.zort.sqllib.api.data.Lazy;
 import me.zort.sqllib.api.data.Row;
-import me.zort.sqllib.api.provider.Select;
 import me.zort.sqllib.internal.annotation.LinkedOne;
 import me.zort.sqllib.internal.annotation.PrimaryKey;
+import me.zort.sqllib.pool.SQLConnectionPool;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Parameter;
 import java.lang.reflect.Type;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Functionality class for {@link LinkedOne} annotation.
+ * <p>
+ * When mapping a whole result, linked objects of all rows are fetched
+ * in advance using a few IN (...) queries, see {@link LinkedOneFieldResolver#prefetch(SQLDatabaseConnectionImpl, Class, List)}.
+ * Otherwise, each linked object is fetched by its own query. Lazy links
+ * are not prefetched, but rows of one result linking the same object share
+ * a single {@link Lazy} holder. Lazy links of a pooled connection are loaded
+ * using a connection borrowed from its pool at the time of loading.
  *
  * @author ZorTik
  * @see LinkedOne
  */
 public class LinkedOneFieldResolver implements ObjectMapper.FieldValueResolver {
 
+  // Max count of ids in a single IN (...) query
+  private static final int MAX_IDS_PER_QUERY = 500;
+  private static final Map<Class<?>, List<Link>> links = new ConcurrentHashMap<>();
+  private static final ThreadLocal<Prefetch> prefetch = new ThreadLocal<>();
+
   @Override
   public Object obtainValue(SQLConnection _connection,
                             AnnotatedElement element,
@@ -38,40 +60,255 @@ public class LinkedOneFieldResolver implements ObjectMapper.FieldValueResolver {
       // This makes mapping function hop to the next resolver.
       return null;
     }
-    Class<?> targetClass;
-    if (element instanceof Field) {
-      targetClass = ((Field) element).getType();
-    } else {
-      targetClass = ((Parameter) element).getType();
+    LinkedOne linkedOne = element.getAnnotation(LinkedOne.class);
+    Object idObject = row.get(linkedOne.localColumn());
+    if (idObject == null && (idObject = row.get(fieldName)) == null && (idObject = row.get(convertedName)) == null) {
+      // No local column found with that name.
+      connection.debug(() -> String.format("No local column found for @LinkedOne field %s.", fieldName));
+      return null;
     }
-    Field targetIdField = null;
-    for (Field field : targetClass.getDeclaredFields()) {
-      if (field.isAnnotationPresent(PrimaryKey.class)) {
-        targetIdField = field;
-        break;
-      }
+
+    boolean holder = isLazyType(element);
+    Class<?> targetClass = targetClass(element);
+    if (targetClass == null) {
+      connection.debug(() -> String.format("Cannot resolve target type of @LinkedOne field %s.", fieldName));
+      return null;
     }
+
+    Prefetch current = prefetch.get();
+    if (current != null && current.connection != connection) current = null;
+    if (current != null && current.values.containsKey(element)) {
+      Object target = current.values.get(element).get(normalizeId(idObject));
+      return holder ? Lazy.loaded(target) : target;
+    }
+
+    Field targetIdField = findIdField(targetClass);
     if (targetIdField == null) {
       // Target type has no primary key annotated!
-      connection.debug(String.format("No primary key field set for target in @LinkedOne field %s.", fieldName));
+      connection.debug(() -> String.format("No primary key field set for target in @LinkedOne field %s.", fieldName));
       return null;
     }
 
-    LinkedOne linkedOne = element.getAnnotation(LinkedOne.class);
-    Object idObject = row.get(fieldName);
-    if (idObject == null && (idObject = row.get(convertedName)) == null) {
-      // No local column found with that name.
-      connection.debug(String.format("No local column found for @LinkedOne field %s.", fieldName));
-      return null;
+    String idColumn = connection.getOptions().getNamingStrategy().fieldNameToColumn(targetIdField.getName());
+    final Object id = idObject;
+    if (!holder) {
+      if (linkedOne.fetch() == LinkedOne.Fetch.LAZY) {
+        connection.debug(() -> String.format("@LinkedOne field %s is not of Lazy type, fetching eagerly.", fieldName));
+      }
+      return fetchOne(connection, linkedOne.targetTable(), idColumn, id, targetClass);
+    } else if (linkedOne.fetch() == LinkedOne.Fetch.EAGER) {
+      return Lazy.loaded(fetchOne(connection, linkedOne.targetTable(), idColumn, id, targetClass));
     }
-    return connection.query(Select.of("*")
-                            .from(linkedOne.targetTable())
-                            .where().isEqual(
-                                    connection.getOptions().getNamingStrategy().fieldNameToColumn(targetIdField.getName()),
-                                    idObject),
+
+    // Rows of the same result linking the same object share one holder.
+    Map<List<Object>, Lazy<?>> memo = current != null ? current.lazy : new HashMap<>();
+    // Pooled connection is likely returned (and used by someone else)
+    // before the value is loaded, so the load borrows its own.
+    SQLConnectionPool pool = connection.getAssignedPool();
+    return memo.computeIfAbsent(Arrays.asList(linkedOne.targetTable(), targetClass, normalizeId(id)),
+            k -> Lazy.of(pool != null
+                    ? () -> fetchPooled(pool, linkedOne.targetTable(), idColumn, id, targetClass)
+                    : () -> fetchOne(connection, linkedOne.targetTable(), idColumn, id, targetClass)));
+  }
+
+  @Nullable
+  private static Object fetchPooled(SQLConnectionPool pool,
+                                    String table,
+                                    String idColumn,
+                                    Object id,
+                                    Class<?> targetClass) {
+    try (SQLDatabaseConnection borrowed = pool.getResource()) {
+      if (!(borrowed instanceof SQLDatabaseConnectionImpl)) {
+        throw new IllegalStateException("Pool " + pool.getPoolName() + " does not produce SQLDatabaseConnectionImpl connections.");
+      }
+      return fetchOne((SQLDatabaseConnectionImpl) borrowed, table, idColumn, id, targetClass);
+    } catch (SQLException e) {
+      // Not loaded, so the next access tries again.
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Nullable
+  private static Object fetchOne(SQLDatabaseConnectionImpl connection,
+                                 String table,
+                                 String idColumn,
+                                 Object id,
+                                 Class<?> targetClass) {
+    return connection.query(connection.select()
+                            .from(table)
+                            .where().isEqual(idColumn, id),
                     targetClass)
             .stream()
             .findFirst().orElse(null);
   }
 
+  /**
+   * Fetches objects linked by {@link LinkedOne} fields of provided type for
+   * all provided rows, so they don't need to be fetched one by one while mapping.
+   * Fetched objects are used by this resolver on the current thread until
+   * the returned prefetch is closed.
+   *
+   * @param connection Connection to fetch with.
+   * @param type Type the rows are going to be mapped to.
+   * @param rows Rows to be mapped.
+   * @return The prefetch, to be closed after the rows are mapped.
+   */
+  @ApiStatus.Internal
+  @NotNull
+  public static Prefetch prefetch(final @NotNull SQLDatabaseConnectionImpl connection,
+                                  final @NotNull Class<?> type,
+                                  final @NotNull List<Row> rows) {
+    List<Link> typeLinks = links.computeIfAbsent(type, LinkedOneFieldResolver::findLinks);
+    if (typeLinks.isEmpty() || rows.size() < 2) {
+      return Prefetch.NONE;
+    }
+
+    Map<AnnotatedElement, Map<Object, Object>> values = new HashMap<>();
+    boolean lazy = false;
+    for (Link link : typeLinks) {
+      if (link.annotation.fetch() == LinkedOne.Fetch.LAZY && isLazyType(link.field)) {
+        // Fetched on access, but still share holders within this result.
+        lazy = true;
+        continue;
+      }
+      Set<Object> ids = new LinkedHashSet<>();
+      for (Row row : rows) {
+        Object id = row.get(link.annotation.localColumn());
+        if (id != null) ids.add(id);
+      }
+      if (ids.isEmpty()) continue;
+
+      String idColumn = connection.getOptions().getNamingStrategy().fieldNameToColumn(link.targetIdField.getName());
+      Map<Object, Object> targets = new HashMap<>();
+      List<Object> idList = new ArrayList<>(ids);
+      for (int i = 0; i < idList.size(); i += MAX_IDS_PER_QUERY) {
+        List<Object> chunk = idList.subList(i, Math.min(i + MAX_IDS_PER_QUERY, idList.size()));
+        for (Object target : connection.query(connection.select()
+                .from(link.annotation.targetTable())
+                .where().in(idColumn, chunk), link.targetClass)) {
+          try {
+            targets.put(normalizeId(link.targetIdField.get(target)), target);
+          } catch (IllegalAccessException e) {
+            // Resolved one by one instead.
+            targets = null;
+            break;
+          }
+        }
+        if (targets == null) break;
+      }
+      if (targets != null) values.put(link.field, targets);
+    }
+    if (values.isEmpty() && !lazy) {
+      return Prefetch.NONE;
+    }
+
+    Prefetch result = new Prefetch(connection, values, prefetch.get());
+    prefetch.set(result);
+    return result;
+  }
+
+  private static List<Link> findLinks(Class<?> type) {
+    List<Link> result = new ArrayList<>();
+    for (Field field : type.getDeclaredFields()) {
+      if (Modifier.isStatic(field.getModifiers()) || !field.isAnnotationPresent(LinkedOne.class)) continue;
+      Class<?> targetClass = targetClass(field);
+      Field targetIdField = targetClass != null ? findIdField(targetClass) : null;
+      if (targetIdField == null) continue;
+      try {
+        targetIdField.setAccessible(true);
+      } catch (RuntimeException e) {
+        continue;
+      }
+      result.add(new Link(field, field.getAnnotation(LinkedOne.class), targetClass, targetIdField));
+    }
+    return result.isEmpty() ? Collections.emptyList() : result;
+  }
+
+  private static boolean isLazyType(AnnotatedElement element) {
+    return element instanceof Field && ((Field) element).getType().equals(Lazy.class);
+  }
+
+  // Type of linked object, type argument of Lazy fields.
+  @Nullable
+  private static Class<?> targetClass(AnnotatedElement element) {
+    if (element instanceof Parameter) {
+      return ((Parameter) element).getType();
+    }
+    Field field = (Field) element;
+    if (!isLazyType(field)) {
+      return field.getType();
+    }
+    Type type = field.getGenericType();
+    if (type instanceof ParameterizedType) {
+      Type argument = ((ParameterizedType) type).getActualTypeArguments()[0];
+      if (argument instanceof Class) return (Class<?>) argument;
+    }
+    return null;
+  }
+
+  @Nullable
+  private static Field findIdField(Class<?> targetClass) {
+    for (Field field : targetClass.getDeclaredFields()) {
+      if (field.isAnnotationPresent(PrimaryKey.class)) {
+        return field;
+      }
+    }
+    return null;
+  }
+
+  // Local and target columns can be read as different number types.
+  private static Object normalizeId(Object id) {
+    if (id instanceof Integer || id instanceof Long || id instanceof Short || id instanceof Byte) {
+      return ((Number) id).longValue();
+    }
+    return id;
+  }
+
+  private static final class Link {
+    private final Field field;
+    private final LinkedOne annotation;
+    private final Class<?> targetClass;
+    private final Field targetIdField;
+
+    private Link(Field field, LinkedOne annotation, Class<?> targetClass, Field targetIdField) {
+      this.field = field;
+      this.annotation = annotation;
+      this.targetClass = targetClass;
+      this.targetIdField = targetIdField;
+    }
+  }
+
+  /**
+   * Objects fetched in advance by {@link LinkedOneFieldResolver#prefetch(SQLDatabaseConnectionImpl, Class, List)}.
+   */
+  @ApiStatus.Internal
+  public static final class Prefetch implements AutoCloseable {
+    private static final Prefetch NONE = new Prefetch(null, Collections.emptyMap(), null);
+
+    private final SQLDatabaseConnectionImpl connection;
+    // Fetched objects by normalized id, for each linked field
+    private final Map<AnnotatedElement, Map<Object, Object>> values;
+    // Holders of lazily fetched objects, by target table, type and id
+    private final Map<List<Object>, Lazy<?>> lazy = new HashMap<>();
+    private final Prefetch previous;
+
+    private Prefetch(SQLDatabaseConnectionImpl connection,
+                     Map<AnnotatedElement, Map<Object, Object>> values,
+                     Prefetch previous) {
+      this.connection = connection;
+      this.values = values;
+      this.previous = previous;
+    }
+
+    @Override
+    public void close() {
+      if (this == NONE) return;
+      if (previous != null) {
+        prefetch.set(previous);
+      } else {
+        prefetch.remove();
+      }
+    }
+  }
+
 }
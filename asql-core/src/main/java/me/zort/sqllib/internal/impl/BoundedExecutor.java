@@ -0,0 +1,143 @@
+package me.zort.sqllib.internal.impl;
+
+import me.zort.sqllib.JVM;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor that runs at most provided count of tasks at once
+ * on a delegate executor. Other tasks are queued in order of
+ * submission, without blocking the submitting thread.
+ * <p>
+ * Used for async queries, so they never need more connections
+ * than the connection (or pool) can provide.
+ * <p>
+ * If the delegate rejects a task, the task stays queued and is retried
+ * on next submission or when a running task finishes. Submitting thread
+ * gets the {@link RejectedExecutionException} only if its own task
+ * could not be queued.
+ */
+public final class BoundedExecutor implements Executor {
+
+  private final Executor delegate;
+  private final int maxConcurrency;
+  private final Deque<Runnable> queue = new ConcurrentLinkedDeque<>();
+  private final AtomicInteger running = new AtomicInteger();
+
+  public BoundedExecutor(final @NotNull Executor delegate, final int maxConcurrency) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("Max concurrency must be at least 1!");
+    }
+    this.delegate = Objects.requireNonNull(delegate, "Delegate executor cannot be null!");
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  @Override
+  public void execute(final @NotNull Runnable command) {
+    queue.add(Objects.requireNonNull(command, "Command cannot be null!"));
+    try {
+      drain();
+    } catch (RejectedExecutionException e) {
+      // Fails the command only if it's not dispatched yet, so it never runs.
+      if (queue.removeLastOccurrence(command)) throw e;
+    }
+  }
+
+  /**
+   * Returns count of tasks that are submitted, but not yet running.
+   *
+   * @return Count of queued tasks.
+   */
+  public int getQueuedCount() {
+    return queue.size();
+  }
+
+  public int getRunningCount() {
+    return running.get();
+  }
+
+  private void drain() {
+    while (!queue.isEmpty()) {
+      int current = running.get();
+      if (current >= maxConcurrency) {
+        // Running task picks up the queued one when it finishes.
+        return;
+      }
+      if (!running.compareAndSet(current, current + 1)) {
+        continue;
+      }
+      Runnable task = queue.poll();
+      if (task == null) {
+        running.decrementAndGet();
+        continue;
+      }
+      try {
+        delegate.execute(() -> {
+          try {
+            task.run();
+          } finally {
+            running.decrementAndGet();
+            try {
+              drain();
+            } catch (RejectedExecutionException ignored) {
+              // Queued tasks are retried on next submission.
+            }
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        queue.addFirst(task);
+        running.decrementAndGet();
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Returns executor shared by async queries that have no executor
+   * configured. Its threads are daemon threads created on demand
+   * and released after a minute of inactivity.
+   *
+   * @return The shared executor.
+   */
+  public static Executor sharedExecutor() {
+    return SharedExecutorHolder.EXECUTOR;
+  }
+
+  /**
+   * Returns shared executor running each task in a new virtual thread.
+   * Used by pools with {@link me.zort.sqllib.pool.SQLConnectionPool.Options#isVirtualThreads()}.
+   *
+   * @return The virtual thread executor.
+   * @throws UnsupportedOperationException If virtual threads are not supported (Java 20 or older).
+   */
+  public static Executor virtualThreadExecutor() {
+    if (!JVM.isVirtualThreadsSupported()) {
+      // Failed holder initialization could not be retried.
+      throw new UnsupportedOperationException("Virtual threads require Java 21 or newer!");
+    }
+    return VirtualExecutorHolder.EXECUTOR;
+  }
+
+  // Holders are initialized on first access, without locking afterwards.
+  private static final class SharedExecutorHolder {
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "asql-async-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  private static final class VirtualExecutorHolder {
+    private static final ExecutorService EXECUTOR = JVM.newVirtualThreadPerTaskExecutor();
+  }
+
+}
@@ -8,20 +8,16 @@ import me.zort.sqllib.api.DefsVals;
 import me.zort.sqllib.api.ISQLDatabaseOptions;
 import me.zort.sqllib.api.ObjectMapper;
 import me.zort.sqllib.api.data.Row;
+import me.zort.sqllib.api.data.RowHeader;
 import me.zort.sqllib.api.options.NamingStrategy;
-import me.zort.sqllib.internal.annotation.JsonField;
-import me.zort.sqllib.util.Validator;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.*;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicReference;
 
 public class DefaultObjectMapper implements ObjectMapper {
 
@@ -30,6 +26,9 @@ public class DefaultObjectMapper implements ObjectMapper {
   @Getter(AccessLevel.PROTECTED)
   private final List<ObjectMapper.FieldValueResolver> backupValueResolvers;
   private final Map<Class<?>, ObjectMapper.TypeAdapter<?>> typeAdapters;
+  // Mapping plans of deserialized classes, built on first use
+  private final Map<Class<?>, MappingPlan> plans;
+  private final Map<Class<?>, SerializationPlan> serializationPlans;
 
   private final Gson gson;
   private final NamingStrategy ns;
@@ -43,6 +42,8 @@ public class DefaultObjectMapper implements ObjectMapper {
   public DefaultObjectMapper(Gson gson, NamingStrategy namingStrategy) {
     this.backupValueResolvers = new CopyOnWriteArrayList<>();
     this.typeAdapters = new ConcurrentHashMap<>();
+    this.plans = new ConcurrentHashMap<>();
+    this.serializationPlans = new ConcurrentHashMap<>();
     this.gson = gson;
     this.ns = namingStrategy;
   }
@@ -55,99 +56,97 @@ public class DefaultObjectMapper implements ObjectMapper {
   @Override
   public void registerAdapter(@NotNull Class<?> typeClass, @NotNull TypeAdapter<?> adapter) {
     this.typeAdapters.put(typeClass, adapter);
+    // Plans hold adapters resolved when they were built.
+    this.plans.clear();
+    this.serializationPlans.clear();
   }
 
+  @SuppressWarnings("unchecked")
   @Nullable
   public <T> T deserializeValues(Row row, Class<T> typeClass) {
-    T instance = null;
-    try {
+    MappingPlan plan = plans.computeIfAbsent(typeClass, this::buildPlan);
+    RowHeader header = row.getHeader();
+    MappingPlan.Binding binding = header != null ? plan.bind(header) : null;
+
+    Object instance = null;
+    if (plan.hasNoArgConstructor()) {
       try {
-        Constructor<T> c = typeClass.getConstructor();
-        c.setAccessible(true);
-        instance = c.newInstance();
-      } catch (NoSuchMethodException e) {
-        for (Constructor<?> c : typeClass.getConstructors()) {
-          if (c.getParameterCount() == row.size()) {
-            Parameter[] params = c.getParameters();
-            Object[] vals = new Object[c.getParameterCount()];
-            for (int i = 0; i < row.size(); i++) {
-              Parameter param = params[i];
-              vals[i] = buildElementValue(param, row);
-            }
-            try {
-              c.setAccessible(true);
-              instance = (T) c.newInstance(vals);
-            } catch (Exception ignored) {
-            }
-          }
-        }
+        instance = plan.newInstance();
+      } catch (Throwable e) {
+        if (e instanceof Error) throw (Error) e;
+        debug("Cannot instantinate " + typeClass.getName() + " for assigning attributes from row!");
+        e.printStackTrace();
+        return null;
       }
-      for (Field field : typeClass.getDeclaredFields()) {
-
-        if (Modifier.isTransient(field.getModifiers()) || Modifier.isStatic(field.getModifiers())) {
-          continue;
+    } else {
+      // Rows with a header only try constructors matching its size.
+      int[] candidates = binding != null ? binding.constructors : null;
+      int count = candidates != null ? candidates.length : plan.getConstructorCount();
+      for (int c = 0; c < count && instance == null; c++) {
+        int i = candidates != null ? candidates[c] : c;
+        MappingPlan.Property[] params = plan.getConstructorParams(i);
+        if (params.length != row.size()) continue;
+
+        Object[] vals = new Object[params.length];
+        for (int j = 0; j < params.length; j++) {
+          vals[j] = buildElementValue(params[j], row, binding);
         }
-
         try {
-          field.setAccessible(true);
-          field.set(instance, buildElementValue(field, row));
-        } catch (SecurityException ignored) {
-          debug(String.format("Field %s on class %s cannot be set accessible!",
-                  field.getName(),
-                  typeClass.getName()));
-        } catch (Exception ignored) {
+          instance = plan.newInstance(i, vals);
+        } catch (Throwable e) {
+          if (e instanceof Error) throw (Error) e;
         }
       }
-    } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-      debug("Cannot instantinate " + typeClass.getName() + " for assigning attributes from row!");
-      e.printStackTrace();
-      return null;
+      if (instance == null) return null;
+    }
+
+    for (MappingPlan.Property field : plan.getFields()) {
+      try {
+        field.set(instance, buildElementValue(field, row, binding));
+      } catch (Throwable e) {
+        if (e instanceof Error) throw (Error) e;
+      }
     }
-    return instance;
+    return (T) instance;
+  }
+
+  private MappingPlan buildPlan(Class<?> typeClass) {
+    return new MappingPlan(typeClass, ns, typeAdapters::get, this::debug);
   }
 
   @Nullable
-  private Object buildElementValue(AnnotatedElement element, Row row) {
-    String name;
-    Type type;
-    Class<?> declaringClass;
-    if (element instanceof Field) {
-      name = ((Field) element).getName();
-      type = ((Field) element).getGenericType();
-      declaringClass = ((Field) element).getDeclaringClass();
-    } else if (element instanceof Parameter) {
-      name = ((Parameter) element).getName();
-      type = ((Parameter) element).getType();
-      declaringClass = ((Parameter) element).getDeclaringExecutable().getDeclaringClass();
-    } else {
-      return null;
+  private Object buildElementValue(MappingPlan.Property property, Row row, @Nullable MappingPlan.Binding binding) {
+    Object obj;
+    if (binding != null) {
+      int index = binding.indexByName(property);
+      obj = index >= 0 ? row.getValue(index) : null;
+      if (obj == null && (index = binding.indexByColumn(property)) >= 0) {
+        obj = row.getValue(index);
+      }
+    } else if ((obj = row.get(property.name)) == null) {
+      obj = row.get(property.column);
     }
-    Object obj = row.get(name);
+
     if (obj == null) {
-      String converted;
-      if ((obj = row.get(converted = ns.fieldNameToColumn(name))) == null) {
-        if (connectionWrapper != null) { // Only if this class is used with connection, use resolvers
-          // Now backup resolvers come.
-          for (ObjectMapper.FieldValueResolver resolver : backupValueResolvers) {
-            Object backupValue = resolver.obtainValue(connectionWrapper, element, row, name, converted, type);
-            if (backupValue != null) {
-              return backupValue;
-            }
+      if (connectionWrapper != null) { // Only if this class is used with connection, use resolvers
+        // Now backup resolvers come.
+        for (ObjectMapper.FieldValueResolver resolver : backupValueResolvers) {
+          Object backupValue = resolver.obtainValue(connectionWrapper, property.element, row,
+                  property.name, property.column, property.type);
+          if (backupValue != null) {
+            return backupValue;
           }
         }
-
-        debug(String.format("Cannot find column for class %s target %s (%s)", declaringClass.getName(), name, converted));
-        return null;
-      }
-    } else {
-      TypeAdapter<?> typeAdapter = typeAdapters.get(type.getClass());
-      if (typeAdapter != null) {
-        return typeAdapter.deserialize(element, row, obj);
+        connectionWrapper.debug(() -> String.format("Cannot find column for class %s target %s (%s)",
+                property.declaringClass.getName(), property.name, property.column));
       }
+      return null;
     }
-    if (element.isAnnotationPresent(JsonField.class) && obj instanceof String) {
-      String jsonString = (String) obj;
-      return gson.fromJson(jsonString, type);
+
+    if (property.adapter != null) {
+      return property.adapter.deserialize(property.element, row, obj);
+    } else if (property.json && obj instanceof String) {
+      return gson.fromJson((String) obj, property.type);
     } else {
       return obj;
     }
@@ -157,43 +156,15 @@ public class DefaultObjectMapper implements ObjectMapper {
   public DefsVals serializeValues(Object obj) {
     Objects.requireNonNull(obj);
 
-    Class<?> aClass = obj.getClass();
-
-    Map<String, Object> fields = new HashMap<>();
-    for (Field field : aClass.getDeclaredFields()) {
-
-      if (Modifier.isTransient(field.getModifiers())) {
-        // Transient fields are ignored.
-        continue;
-      }
-
-      try {
-        field.setAccessible(true);
-        Object o = field.get(obj);
-        if (typeAdapters.containsKey(field.getType())) {
-          o = typeAdapters.get(field.getType()).serialize(field, o);
-        } else if (field.isAnnotationPresent(JsonField.class)) {
-          o = gson.toJson(o);
-        } else if (Validator.validateAutoIncrement(field) && field.get(obj) == null) {
-          // If field is PrimaryKey and autoIncrement true and is null,
-          // We will skip this to use auto increment strategy on SQL server.
-          continue;
-        }
-        fields.put(ns.fieldNameToColumn(field.getName()), o);
-      } catch (IllegalAccessException e) {
-        e.printStackTrace();
-        return null;
-      }
-    }
-    // I make entry array for indexing safety.
-    Map.Entry<String, Object>[] entryArray = fields.entrySet().toArray(new Map.Entry[0]);
-    String[] defs = new String[entryArray.length];
-    AtomicReference<Object>[] vals = new AtomicReference[entryArray.length];
-    for (int i = 0; i < entryArray.length; i++) {
-      defs[i] = entryArray[i].getKey();
-      vals[i] = new AtomicReference<>(entryArray[i].getValue());
+    SerializationPlan plan = serializationPlans.computeIfAbsent(obj.getClass(),
+            type -> new SerializationPlan(type, ns, typeAdapters::get));
+    try {
+      return plan.serialize(obj, gson::toJson);
+    } catch (Throwable e) {
+      if (e instanceof Error) throw (Error) e;
+      e.printStackTrace();
+      return null;
     }
-    return new DefsVals(defs, vals);
   }
 
   private void debug(String message) {
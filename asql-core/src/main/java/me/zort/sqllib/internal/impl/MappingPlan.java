@@ -0,0 +1,293 @@
+package me.zort.sqllib.internal.impl;
+
+import me.zort.sqllib.api.ObjectMapper;
+import me.zort.sqllib.api.data.RowHeader;
+import me.zort.sqllib.api.options.NamingStrategy;
+import me.zort.sqllib.internal.annotation.JsonField;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Reflection data needed to map rows into instances of a single class,
+ * resolved only once per class. Column indexes of mapped properties are
+ * then resolved once per result header, see {@link MappingPlan#bind(RowHeader)}.
+ */
+final class MappingPlan {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final int MAX_BINDINGS = 32;
+
+  private final Class<?> type;
+  // Public no-arg constructor, if there is one
+  private final Constructor<?> constructor;
+  private final MethodHandle constructorHandle;
+  // Other public constructors, used only if there is no no-arg one
+  private final Constructor<?>[] constructors;
+  private final MethodHandle[] constructorHandles;
+  private final Property[][] constructorParams;
+  private final Property[] fields;
+  private final int propertyCount;
+
+  private final Map<List<String>, Binding> bindings = new ConcurrentHashMap<>();
+  private volatile Binding lastBinding = null;
+
+  MappingPlan(final @NotNull Class<?> type,
+              final @NotNull NamingStrategy namingStrategy,
+              final @NotNull Function<Class<?>, ObjectMapper.TypeAdapter<?>> adapters,
+              final @NotNull Consumer<String> debug) {
+    this.type = type;
+    List<Property> properties = new ArrayList<>();
+
+    Constructor<?> constructor;
+    try {
+      constructor = type.getConstructor();
+      constructor.setAccessible(true);
+    } catch (NoSuchMethodException | SecurityException e) {
+      constructor = null;
+    }
+    this.constructor = constructor;
+    this.constructorHandle = constructor != null
+            ? unreflect(constructor, MethodType.methodType(Object.class))
+            : null;
+
+    if (constructor == null) {
+      this.constructors = type.getConstructors();
+      this.constructorHandles = new MethodHandle[constructors.length];
+      this.constructorParams = new Property[constructors.length][];
+      for (int i = 0; i < constructors.length; i++) {
+        Constructor<?> c = constructors[i];
+        try {
+          c.setAccessible(true);
+        } catch (SecurityException ignored) {
+        }
+        constructorHandles[i] = unreflect(c, MethodType.methodType(Object.class, Object[].class));
+        Parameter[] params = c.getParameters();
+        constructorParams[i] = new Property[params.length];
+        for (int j = 0; j < params.length; j++) {
+          Property property = new Property(properties.size(), params[j], params[j].getName(),
+                  params[j].getType(), params[j].getType(), type, namingStrategy, adapters, null, null);
+          constructorParams[i][j] = property;
+          properties.add(property);
+        }
+      }
+    } else {
+      this.constructors = new Constructor<?>[0];
+      this.constructorHandles = new MethodHandle[0];
+      this.constructorParams = new Property[0][];
+    }
+
+    List<Property> fields = new ArrayList<>();
+    for (Field field : type.getDeclaredFields()) {
+      if (Modifier.isTransient(field.getModifiers()) || Modifier.isStatic(field.getModifiers())) {
+        continue;
+      }
+      try {
+        field.setAccessible(true);
+      } catch (RuntimeException e) {
+        debug.accept(String.format("Field %s on class %s cannot be set accessible!", field.getName(), type.getName()));
+        continue;
+      }
+      MethodHandle setter;
+      try {
+        setter = LOOKUP.unreflectSetter(field)
+                .asType(MethodType.methodType(void.class, Object.class, Object.class));
+      } catch (IllegalAccessException e) {
+        // Final fields can't be set through method handles on some JVMs,
+        // we fall back to plain reflection for them.
+        setter = null;
+      }
+      Property property = new Property(properties.size(), field, field.getName(), field.getGenericType(),
+              field.getType(), type, namingStrategy, adapters, field, setter);
+      fields.add(property);
+      properties.add(property);
+    }
+    this.fields = fields.toArray(new Property[0]);
+    this.propertyCount = properties.size();
+  }
+
+  @Nullable
+  private static MethodHandle unreflect(Constructor<?> constructor, MethodType type) {
+    try {
+      MethodHandle handle = LOOKUP.unreflectConstructor(constructor);
+      if (type.parameterCount() > 0) {
+        handle = handle.asSpreader(Object[].class, constructor.getParameterCount());
+      }
+      return handle.asType(type);
+    } catch (IllegalAccessException | RuntimeException e) {
+      // Reflection is used instead.
+      return null;
+    }
+  }
+
+  /**
+   * Resolves column indexes of all properties for provided header.
+   *
+   * @param header Header of mapped rows.
+   * @return The binding.
+   */
+  Binding bind(final @NotNull RowHeader header) {
+    Binding binding = lastBinding;
+    if (binding != null && binding.header == header) {
+      return binding;
+    }
+    List<String> names = header.getNames();
+    binding = bindings.get(names);
+    if (binding == null) {
+      binding = new Binding(header, this);
+      if (bindings.size() >= MAX_BINDINGS) bindings.clear();
+      bindings.put(names, binding);
+    } else {
+      binding = new Binding(header, binding);
+    }
+    lastBinding = binding;
+    return binding;
+  }
+
+  Class<?> getType() {
+    return type;
+  }
+
+  boolean hasNoArgConstructor() {
+    return constructor != null;
+  }
+
+  Object newInstance() throws Throwable {
+    if (constructorHandle != null) {
+      return (Object) constructorHandle.invokeExact();
+    }
+    try {
+      return constructor.newInstance();
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  int getConstructorCount() {
+    return constructors.length;
+  }
+
+  Property[] getConstructorParams(int index) {
+    return constructorParams[index];
+  }
+
+  Object newInstance(int index, Object[] args) throws Throwable {
+    MethodHandle handle = constructorHandles[index];
+    if (handle != null) {
+      return (Object) handle.invokeExact(args);
+    }
+    try {
+      return constructors[index].newInstance(args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  Property[] getFields() {
+    return fields;
+  }
+
+  /**
+   * A mapped field or constructor parameter.
+   */
+  static final class Property {
+    final int id;
+    final AnnotatedElement element;
+    final String name;
+    final String column;
+    final Type type;
+    final Class<?> declaringClass;
+    final boolean json;
+    final ObjectMapper.TypeAdapter<?> adapter;
+    private final Field field;
+    private final MethodHandle setter;
+
+    private Property(int id,
+                     AnnotatedElement element,
+                     String name,
+                     Type type,
+                     Class<?> rawType,
+                     Class<?> declaringClass,
+                     NamingStrategy namingStrategy,
+                     Function<Class<?>, ObjectMapper.TypeAdapter<?>> adapters,
+                     @Nullable Field field,
+                     @Nullable MethodHandle setter) {
+      this.id = id;
+      this.element = element;
+      this.name = name;
+      this.column = namingStrategy.fieldNameToColumn(name);
+      this.type = type;
+      this.declaringClass = declaringClass;
+      this.json = element.isAnnotationPresent(JsonField.class);
+      this.adapter = adapters.apply(rawType);
+      this.field = field;
+      this.setter = setter;
+    }
+
+    void set(Object instance, Object value) throws Throwable {
+      if (setter != null) {
+        setter.invokeExact(instance, value);
+      } else {
+        field.set(instance, value);
+      }
+    }
+  }
+
+  /**
+   * Column indexes of properties in a single header. Property can be found
+   * either by its name, or by column name converted using naming strategy.
+   */
+  static final class Binding {
+    final RowHeader header;
+    private final int[] byName;
+    private final int[] byColumn;
+    // Constructors with parameter count same as the row size
+    final int[] constructors;
+
+    private Binding(RowHeader header, MappingPlan plan) {
+      this.header = header;
+      this.byName = new int[plan.propertyCount];
+      this.byColumn = new int[plan.propertyCount];
+      List<Property> properties = new ArrayList<>();
+      for (Property[] params : plan.constructorParams) {
+        for (Property param : params) properties.add(param);
+      }
+      for (Property field : plan.fields) properties.add(field);
+      for (Property property : properties) {
+        byName[property.id] = header.indexOf(property.name);
+        byColumn[property.id] = header.indexOf(property.column);
+      }
+      List<Integer> constructors = new ArrayList<>();
+      for (int i = 0; i < plan.constructors.length; i++) {
+        if (plan.constructors[i].getParameterCount() == header.size()) constructors.add(i);
+      }
+      this.constructors = constructors.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private Binding(RowHeader header, Binding other) {
+      this.header = header;
+      this.byName = other.byName;
+      this.byColumn = other.byColumn;
+      this.constructors = other.constructors;
+    }
+
+    int indexByName(Property property) {
+      return byName[property.id];
+    }
+
+    int indexByColumn(Property property) {
+      return byColumn[property.id];
+    }
+  }
+
+}
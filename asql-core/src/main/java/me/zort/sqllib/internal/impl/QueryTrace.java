@@ -0,0 +1,202 @@
+package me.zort.sqllib.internal.impl;
+
+import me.zort.sqllib.api.listener.QueryEvent;
+import me.zort.sqllib.util.SqlFingerprint;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Mutable {@link QueryEvent} recording phases of a query while it runs.
+ * A connection reuses one trace for its queries, so tracing doesn't
+ * allocate unless queries are nested (e.g. linked objects fetched
+ * while mapping).
+ * <p>
+ * Each phase is recorded as time since the previous mark.
+ */
+@ApiStatus.Internal
+public final class QueryTrace implements QueryEvent {
+
+  private boolean active = false;
+  private Kind kind;
+  private Outcome outcome;
+  private String sql;
+  private Object[] parameters;
+  private long fingerprint;
+  private long start;
+  private long mark;
+  private long buildNanos;
+  private long prepareNanos;
+  private long executeNanos;
+  private long readNanos;
+  private long mapNanos;
+  private long totalNanos;
+  private int rowCount;
+  private Throwable error;
+
+  /**
+   * Starts recording a new query, if this trace is not in use.
+   *
+   * @param kind Kind of the query.
+   * @return True if the trace has been started.
+   */
+  public boolean start(Kind kind) {
+    if (active) return false;
+    active = true;
+    this.kind = kind;
+    outcome = Outcome.SUCCESS;
+    sql = null;
+    parameters = null;
+    fingerprint = 0L;
+    buildNanos = prepareNanos = executeNanos = readNanos = mapNanos = totalNanos = 0L;
+    rowCount = -1;
+    error = null;
+    start = mark = System.nanoTime();
+    return true;
+  }
+
+  public void built(String sql) {
+    built(sql, null);
+  }
+
+  public void built(String sql, @Nullable Object[] parameters) {
+    this.sql = sql;
+    this.parameters = parameters;
+    buildNanos += lap();
+  }
+
+  public void prepared() {
+    prepareNanos += lap();
+  }
+
+  public void executed() {
+    executeNanos += lap();
+  }
+
+  public void read(int rowCount) {
+    this.rowCount = rowCount;
+    readNanos += lap();
+  }
+
+  public void mapped() {
+    mapNanos += lap();
+  }
+
+  public void setRowCount(int rowCount) {
+    this.rowCount = rowCount;
+  }
+
+  public void cached() {
+    outcome = Outcome.CACHED;
+  }
+
+  public void failed(Throwable error) {
+    outcome = Outcome.ERROR;
+    this.error = error;
+  }
+
+  public void finish() {
+    totalNanos = System.nanoTime() - start;
+  }
+
+  /**
+   * Releases the trace after it has been reported, so it
+   * can be started again.
+   */
+  public void release() {
+    active = false;
+  }
+
+  private long lap() {
+    long now = System.nanoTime();
+    long elapsed = now - mark;
+    mark = now;
+    return elapsed;
+  }
+
+  @Override
+  public Kind getKind() {
+    return kind;
+  }
+
+  @Override
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  @Nullable
+  @Override
+  public String getSql() {
+    return sql;
+  }
+
+  /**
+   * Returns values bound to the statement, if it has been built
+   * from a query with parameters. Not part of {@link QueryEvent},
+   * since the values can be sensitive.
+   *
+   * @return The bound values, or null.
+   */
+  @Nullable
+  public Object[] getParameters() {
+    return parameters;
+  }
+
+  @Override
+  public long getFingerprint() {
+    // Computed only if some listener needs it.
+    if (fingerprint == 0L && sql != null) {
+      fingerprint = SqlFingerprint.fingerprint(sql);
+    }
+    return fingerprint;
+  }
+
+  @Override
+  public long getBuildNanos() {
+    return buildNanos;
+  }
+
+  @Override
+  public long getPrepareNanos() {
+    return prepareNanos;
+  }
+
+  @Override
+  public long getExecuteNanos() {
+    return executeNanos;
+  }
+
+  @Override
+  public long getReadNanos() {
+    return readNanos;
+  }
+
+  @Override
+  public long getMapNanos() {
+    return mapNanos;
+  }
+
+  @Override
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  @Override
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  @Nullable
+  @Override
+  public Throwable getError() {
+    return error;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("QueryEvent{kind=%s, outcome=%s, rows=%d, total=%dns, build=%dns, prepare=%dns, " +
+                    "execute=%dns, read=%dns, map=%dns, sql=%s}",
+            kind, outcome, rowCount, totalNanos, buildNanos, prepareNanos,
+            executeNanos, readNanos, mapNanos, sql);
+  }
+
+}
@@ -0,0 +1,80 @@
+package me.zort.sqllib.internal.impl;
+
+import me.zort.sqllib.api.data.Row;
+import me.zort.sqllib.api.data.RowHeader;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Reads rows of a single result set. Column names and column
+ * readers are resolved from the metadata only once, each row then
+ * only reads values into an array shared with {@link Row}.
+ */
+public final class ResultRowReader implements ResultSetIterator.RowReader<Row> {
+
+  private static final ColumnReader STRING_READER = ResultSet::getString;
+  private static final ColumnReader OBJECT_READER = ResultSet::getObject;
+
+  private final RowHeader header;
+  private final ColumnReader[] readers;
+
+  private ResultRowReader(RowHeader header, ColumnReader[] readers) {
+    this.header = header;
+    this.readers = readers;
+  }
+
+  /**
+   * Creates a reader for result set with provided metadata.
+   *
+   * @param meta Metadata of the result set.
+   * @return The reader.
+   * @throws SQLException If the metadata cannot be read.
+   */
+  public static ResultRowReader of(final @NotNull ResultSetMetaData meta) throws SQLException {
+    int count = meta.getColumnCount();
+    String[] columns = new String[count];
+    ColumnReader[] readers = new ColumnReader[count];
+    for (int i = 0; i < count; i++) {
+      columns[i] = meta.getColumnName(i + 1);
+      readers[i] = resolveReader(meta.getColumnType(i + 1));
+    }
+    return new ResultRowReader(new RowHeader(columns), readers);
+  }
+
+  private static ColumnReader resolveReader(int type) {
+    switch (type) {
+      case Types.CHAR:
+      case Types.VARCHAR:
+      case Types.LONGVARCHAR:
+      case Types.NCHAR:
+      case Types.NVARCHAR:
+      case Types.LONGNVARCHAR:
+        return STRING_READER;
+      default:
+        return OBJECT_READER;
+    }
+  }
+
+  @Override
+  public Row read(final @NotNull ResultSet resultSet) throws SQLException {
+    Object[] values = new Object[header.size()];
+    for (int i = 0; i < readers.length; i++) {
+      values[header.slot(i)] = readers[i].read(resultSet, i + 1);
+    }
+    return new Row(header, values);
+  }
+
+  public RowHeader getHeader() {
+    return header;
+  }
+
+  @FunctionalInterface
+  private interface ColumnReader {
+    Object read(ResultSet resultSet, int column) throws SQLException;
+  }
+
+}
@@ -0,0 +1,101 @@
+package me.zort.sqllib.internal.impl;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An iterator reading rows from an open result set one by one,
+ * as they are fetched from the database. The result set and its
+ * statement are closed once the iterator is exhausted, fails or
+ * is closed manually.
+ *
+ * @param <T> Type of the read rows.
+ */
+public final class ResultSetIterator<T> implements Iterator<T>, AutoCloseable {
+
+  private final Statement statement;
+  private final ResultSet resultSet;
+  private final RowReader<T> reader;
+  private T next = null;
+  private boolean closed = false;
+
+  public ResultSetIterator(final @NotNull Statement statement,
+                           final @NotNull ResultSet resultSet,
+                           final @NotNull RowReader<T> reader) {
+    this.statement = statement;
+    this.resultSet = resultSet;
+    this.reader = reader;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next != null) return true;
+    if (closed) return false;
+    try {
+      if (resultSet.next()) {
+        next = reader.read(resultSet);
+        return true;
+      }
+    } catch (SQLException e) {
+      close();
+      throw new RuntimeException(e);
+    }
+    // Release resources as soon as possible, even if the
+    // stream is never closed by the caller.
+    close();
+    return false;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) throw new NoSuchElementException();
+    T row = next;
+    next = null;
+    return row;
+  }
+
+  @Override
+  public void close() {
+    if (closed) return;
+    closed = true;
+    next = null;
+    try {
+      resultSet.close();
+    } catch (SQLException ignored) {
+    }
+    try {
+      statement.close();
+    } catch (SQLException ignored) {
+    }
+  }
+
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Wraps this iterator into a sequential stream. Closing the
+   * stream closes this iterator.
+   *
+   * @return The stream.
+   */
+  public Stream<T> stream() {
+    Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+    return StreamSupport.stream(spliterator, false).onClose(this::close);
+  }
+
+  @FunctionalInterface
+  public interface RowReader<T> {
+    T read(ResultSet resultSet) throws SQLException;
+  }
+
+}
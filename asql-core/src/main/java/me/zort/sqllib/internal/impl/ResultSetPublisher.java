@@ -0,0 +1,145 @@
+package me.zort.sqllib.internal.impl;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Publisher of rows read from a result set. Each subscription runs
+ * the query again, once the subscriber requests the first item.
+ * <p>
+ * Rows are read from the result set only as they are requested, so a slow
+ * subscriber keeps the rows in the database (or the driver's fetch buffer)
+ * instead of in memory. The underlying stream is closed, releasing its
+ * statement and connection, on completion, error or cancellation.
+ * <p>
+ * Signals to the subscriber are sent from provided executor, never
+ * concurrently.
+ *
+ * @param <T> Type of published rows.
+ */
+public final class ResultSetPublisher<T> implements Flow.Publisher<T> {
+
+  private final Callable<Stream<T>> opener;
+  private final Executor executor;
+
+  /**
+   * @param opener   Executes the query and opens a stream of its rows.
+   * @param executor Executor reading rows and signalling the subscriber.
+   */
+  public ResultSetPublisher(final @NotNull Callable<Stream<T>> opener, final @NotNull Executor executor) {
+    this.opener = Objects.requireNonNull(opener, "Opener cannot be null!");
+    this.executor = Objects.requireNonNull(executor, "Executor cannot be null!");
+  }
+
+  @Override
+  public void subscribe(final Flow.Subscriber<? super T> subscriber) {
+    Objects.requireNonNull(subscriber, "Subscriber cannot be null!");
+    RowSubscription subscription = new RowSubscription(subscriber);
+    subscriber.onSubscribe(subscription);
+  }
+
+  private final class RowSubscription implements Flow.Subscription {
+    private final Flow.Subscriber<? super T> subscriber;
+    private final AtomicLong demand = new AtomicLong();
+    // Count of signals not yet seen by drain(), drain() runs only while it's positive
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled = false;
+    private volatile long invalidRequest = 0L;
+    // Accessed only from drain()
+    private Stream<T> stream = null;
+    private Iterator<T> iterator = null;
+
+    RowSubscription(Flow.Subscriber<? super T> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = n;
+        cancelled = true;
+      } else {
+        demand.accumulateAndGet(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+      }
+      signal();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      signal();
+    }
+
+    private void signal() {
+      if (wip.getAndIncrement() == 0) {
+        try {
+          executor.execute(this::drain);
+        } catch (RuntimeException e) {
+          cancelled = true;
+          subscriber.onError(e);
+        }
+      }
+    }
+
+    private void drain() {
+      int missed = 1;
+      while (true) {
+        if (cancelled) {
+          closeStream();
+          if (invalidRequest != 0L) {
+            subscriber.onError(new IllegalArgumentException("Requested non-positive count of rows: " + invalidRequest));
+          }
+          // wip is never decreased again, so no more signals are sent.
+          return;
+        }
+        long requested = demand.get();
+        long emitted = 0L;
+        try {
+          if (requested > 0 && iterator == null) {
+            stream = opener.call();
+            iterator = stream.iterator();
+          }
+          while (emitted != requested) {
+            if (cancelled) break;
+            if (!iterator.hasNext()) {
+              cancelled = true;
+              closeStream();
+              subscriber.onComplete();
+              return;
+            }
+            subscriber.onNext(iterator.next());
+            emitted++;
+          }
+        } catch (Throwable e) {
+          cancelled = true;
+          closeStream();
+          subscriber.onError(e);
+          return;
+        }
+        if (emitted > 0 && requested != Long.MAX_VALUE) {
+          demand.addAndGet(-emitted);
+        }
+        missed = wip.addAndGet(-missed);
+        if (missed == 0) return;
+      }
+    }
+
+    private void closeStream() {
+      Stream<T> stream = this.stream;
+      this.stream = null;
+      this.iterator = null;
+      if (stream != null) {
+        stream.close();
+      }
+    }
+  }
+
+}
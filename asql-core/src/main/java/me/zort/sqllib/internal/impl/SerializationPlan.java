@@ -0,0 +1,135 @@
+package me.zort.sqllib.internal.impl;
+
+import me.zort.sqllib.api.DefsVals;
+import me.zort.sqllib.api.ObjectMapper;
+import me.zort.sqllib.api.options.NamingStrategy;
+import me.zort.sqllib.internal.annotation.JsonField;
+import me.zort.sqllib.util.Validator;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Reflection data needed to serialize instances of a single class,
+ * resolved only once per class. Columns are always in the same order,
+ * so all objects of the class produce the same query text.
+ */
+final class SerializationPlan {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private final Column[] columns;
+  private final String[] defs;
+  // Definitions used when all auto increment columns are skipped
+  private final String[] generatedDefs;
+
+  SerializationPlan(final @NotNull Class<?> type,
+                    final @NotNull NamingStrategy namingStrategy,
+                    final @NotNull Function<Class<?>, ObjectMapper.TypeAdapter<?>> adapters) {
+    List<Column> columns = new ArrayList<>();
+    List<String> generatedDefs = new ArrayList<>();
+    for (Field field : type.getDeclaredFields()) {
+      if (!Validator.validateAssignableField(field)) {
+        // Transient and static fields are ignored.
+        continue;
+      }
+      field.setAccessible(true);
+      Column column = new Column(field, namingStrategy.fieldNameToColumn(field.getName()), adapters.apply(field.getType()));
+      columns.add(column);
+      if (!column.autoIncrement) generatedDefs.add(column.name);
+    }
+    this.columns = columns.toArray(new Column[0]);
+    this.defs = new String[this.columns.length];
+    for (int i = 0; i < defs.length; i++) {
+      defs[i] = this.columns[i].name;
+    }
+    this.generatedDefs = generatedDefs.toArray(new String[0]);
+  }
+
+  /**
+   * Reads column values of provided object.
+   *
+   * @param obj  The object, instance of the planned class.
+   * @param gson Function serializing {@link JsonField} values.
+   * @return Definitions and values, definition arrays are shared and must not be modified.
+   * @throws Throwable If any field cannot be read.
+   */
+  DefsVals serialize(final @NotNull Object obj, final @NotNull Function<Object, String> gson) throws Throwable {
+    Object[] values = new Object[columns.length];
+    int skipped = 0;
+    int generated = 0;
+    for (int i = 0; i < columns.length; i++) {
+      Column column = columns[i];
+      Object value = column.get(obj);
+      if (column.adapter != null) {
+        value = column.adapter.serialize(column.field, value);
+      } else if (column.json) {
+        value = gson.apply(value);
+      } else if (column.autoIncrement) {
+        generated++;
+        if (value == null) {
+          // If field is PrimaryKey and autoIncrement true and is null,
+          // We will skip this to use auto increment strategy on SQL server.
+          skipped++;
+          continue;
+        }
+      }
+      values[i - skipped] = value;
+    }
+    if (skipped == 0) {
+      return new DefsVals(defs, values);
+    }
+
+    Object[] trimmed = new Object[columns.length - skipped];
+    System.arraycopy(values, 0, trimmed, 0, trimmed.length);
+    if (skipped == generated) {
+      return new DefsVals(generatedDefs, trimmed);
+    }
+    // Only some of auto increment columns are skipped.
+    String[] defs = new String[trimmed.length];
+    for (int i = 0, j = 0; i < columns.length; i++) {
+      Column column = columns[i];
+      if (column.autoIncrement && column.get(obj) == null) continue;
+      defs[j++] = column.name;
+    }
+    return new DefsVals(defs, trimmed);
+  }
+
+  private static final class Column {
+    private final Field field;
+    private final String name;
+    private final MethodHandle getter;
+    private final ObjectMapper.TypeAdapter<?> adapter;
+    private final boolean json;
+    private final boolean autoIncrement;
+
+    private Column(Field field, String name, ObjectMapper.TypeAdapter<?> adapter) {
+      this.field = field;
+      this.name = name;
+      this.adapter = adapter;
+      this.json = field.isAnnotationPresent(JsonField.class);
+      this.autoIncrement = adapter == null && !json && Validator.validateAutoIncrement(field);
+      MethodHandle getter;
+      try {
+        getter = LOOKUP.unreflectGetter(field)
+                .asType(MethodType.methodType(Object.class, Object.class));
+      } catch (IllegalAccessException e) {
+        // Reflection is used instead.
+        getter = null;
+      }
+      this.getter = getter;
+    }
+
+    private Object get(Object instance) throws Throwable {
+      return getter != null ? (Object) getter.invokeExact(instance) : field.get(instance);
+    }
+  }
+
+}
@@ -0,0 +1,238 @@
+package me.zort.sqllib.internal.impl;
+
+import me.zort.sqllib.util.SqlFingerprint;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Formats slow query reports of a connection and remembers which
+ * queries have already been explained.
+ * <p>
+ * A report contains normalized SQL, bound parameters with names of
+ * columns they are compared to (or inserted into) and row count.
+ * Values of redacted columns are replaced with {@code ***}. If any column
+ * is redacted, so are values whose column cannot be guessed.
+ */
+@ApiStatus.Internal
+public final class SlowQueryLog {
+
+  // Caps memory used by fingerprints, queries past it are not explained.
+  private static final int MAX_EXPLAINED = 1024;
+  private static final int MAX_VALUE_LENGTH = 64;
+  private static final String REDACTED = "***";
+  private static final Pattern INSERT_PATTERN = Pattern.compile(
+          "^\\s*(?:INSERT|REPLACE)\\b[^(]*\\(([^)]*)\\)\\s*VALUES\\b", Pattern.CASE_INSENSITIVE);
+  private static final Pattern EXPLAINABLE_PATTERN = Pattern.compile(
+          "^\\s*(?:SELECT|INSERT|REPLACE|UPDATE|DELETE|WITH)\\b", Pattern.CASE_INSENSITIVE);
+  // Words between a column and its parameter, e.g. name NOT LIKE ?
+  private static final Set<String> SKIPPED_WORDS = new HashSet<>(Arrays.asList(
+          "IN", "NOT", "LIKE", "IS", "BETWEEN", "AND", "REGEXP", "GLOB"));
+  // Words after which a parameter isn't a column value, e.g. LIMIT ?
+  private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+          "LIMIT", "OFFSET", "SELECT", "WHERE", "OR", "SET", "VALUES"));
+
+  private final Set<Long> explained = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Marks query with provided fingerprint as explained.
+   *
+   * @param fingerprint Fingerprint of the query.
+   * @return True if the query has not been explained yet.
+   */
+  public boolean markExplained(long fingerprint) {
+    return explained.size() < MAX_EXPLAINED && explained.add(fingerprint);
+  }
+
+  /**
+   * Checks if query plan of the SQL can be obtained using EXPLAIN.
+   *
+   * @param sql The SQL.
+   * @return True if the statement can be explained.
+   */
+  public static boolean isExplainable(final @NotNull String sql) {
+    return EXPLAINABLE_PATTERN.matcher(sql).find();
+  }
+
+  /**
+   * Reads query plan rows. Only the detail column is used if present
+   * (SQLite), other results are read as {@code column=value} pairs.
+   *
+   * @param resultSet Result of the EXPLAIN statement.
+   * @return Plan rows.
+   * @throws SQLException If the result cannot be read.
+   */
+  public static List<String> readPlan(final @NotNull ResultSet resultSet) throws SQLException {
+    ResultSetMetaData meta = resultSet.getMetaData();
+    int detailColumn = -1;
+    for (int i = 1; i <= meta.getColumnCount(); i++) {
+      if (meta.getColumnLabel(i).equalsIgnoreCase("detail")) detailColumn = i;
+    }
+    List<String> plan = new ArrayList<>();
+    while (resultSet.next()) {
+      if (detailColumn != -1) {
+        plan.add(resultSet.getString(detailColumn));
+        continue;
+      }
+      StringJoiner row = new StringJoiner(", ");
+      for (int i = 1; i <= meta.getColumnCount(); i++) {
+        Object value = resultSet.getObject(i);
+        if (value != null) row.add(meta.getColumnLabel(i) + "=" + value);
+      }
+      plan.add(row.toString());
+    }
+    return plan;
+  }
+
+  /**
+   * Builds report of a slow query.
+   *
+   * @param trace           Trace of the finished query.
+   * @param redactedColumns Columns whose values are hidden, case-insensitive.
+   * @param plan            Query plan, or null if not explained.
+   * @return The report.
+   */
+  public static String describe(final @NotNull QueryTrace trace,
+                                final @NotNull Set<String> redactedColumns,
+                                final @Nullable List<String> plan) {
+    String sql = trace.getSql();
+    StringBuilder builder = new StringBuilder("Slow query (")
+            .append(String.format(Locale.ROOT, "%.1f", trace.getTotalNanos() / 1e6)).append(" ms, ")
+            .append(trace.getKind()).append(", ")
+            .append(trace.getRowCount()).append(" rows): ")
+            .append(sql != null ? SqlFingerprint.normalize(sql) : "<not built>");
+
+    Object[] parameters = trace.getParameters();
+    if (sql != null && parameters != null && parameters.length > 0) {
+      Set<String> redacted = new HashSet<>();
+      for (String column : redactedColumns) {
+        redacted.add(column.toLowerCase(Locale.ROOT));
+      }
+      String[] columns = parameterColumns(sql, parameters.length);
+      StringJoiner joiner = new StringJoiner(", ", " | parameters: [", "]");
+      for (int i = 0; i < parameters.length; i++) {
+        String column = columns[i];
+        // Column is only guessed, so unknown ones could be redacted too.
+        boolean hidden = column != null
+                ? redacted.contains(column.toLowerCase(Locale.ROOT))
+                : !redacted.isEmpty();
+        String value = hidden ? REDACTED : formatValue(parameters[i]);
+        joiner.add(column != null ? column + "=" + value : value);
+      }
+      builder.append(joiner);
+    }
+    if (trace.getError() != null) {
+      builder.append(" | error: ").append(trace.getError().getMessage());
+    }
+    if (plan != null) {
+      builder.append(System.lineSeparator()).append("Query plan:");
+      for (String row : plan) {
+        builder.append(System.lineSeparator()).append("  ").append(row);
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Guesses names of columns that parameters of the SQL belong to.
+   * Inserted values are matched with the column list by position, other
+   * parameters with the identifier before their operator, e.g. {@code name}
+   * in {@code name = ?} or {@code name IN (?, ?)}.
+   *
+   * @param sql   SQL with ? placeholders.
+   * @param count Count of the parameters.
+   * @return Column names by parameter index, null where unknown.
+   */
+  public static String[] parameterColumns(final @NotNull String sql, int count) {
+    String[] columns = new String[count];
+    String[] insertColumns = null;
+    int valuesStart = -1;
+    int valuesEnd = -1;
+    Matcher insert = INSERT_PATTERN.matcher(sql);
+    if (insert.find()) {
+      insertColumns = insert.group(1).split(",");
+      valuesStart = insert.end();
+      // Upsert clauses are matched by name.
+      int upsert = indexOfWord(sql, "ON", valuesStart);
+      valuesEnd = upsert == -1 ? sql.length() : upsert;
+    }
+
+    int parameter = 0;
+    int inserted = 0;
+    boolean quoted = false;
+    for (int i = 0; i < sql.length() && parameter < count; i++) {
+      char c = sql.charAt(i);
+      if (c == '\'') quoted = !quoted;
+      if (quoted || c != '?') continue;
+      if (insertColumns != null && i >= valuesStart && i < valuesEnd) {
+        columns[parameter] = unquote(insertColumns[inserted++ % insertColumns.length]);
+      } else {
+        columns[parameter] = columnBefore(sql, i);
+      }
+      parameter++;
+    }
+    return columns;
+  }
+
+  @Nullable
+  private static String columnBefore(String sql, int position) {
+    int i = position - 1;
+    while (i >= 0) {
+      char c = sql.charAt(i);
+      if (Character.isWhitespace(c) || c == '?' || c == ',' || c == '(' || "=<>!".indexOf(c) != -1) {
+        i--;
+        continue;
+      }
+      int end = i + 1;
+      while (i >= 0 && isIdentifierPart(sql.charAt(i))) i--;
+      if (end == i + 1) return null;
+      String word = sql.substring(i + 1, end);
+      String upper = word.toUpperCase(Locale.ROOT);
+      if (STOP_WORDS.contains(upper)) return null;
+      if (SKIPPED_WORDS.contains(upper)) continue;
+      // Function name, e.g. LOWER(?), not a column.
+      return isCall(sql, end) ? null : unquote(word);
+    }
+    return null;
+  }
+
+  private static boolean isCall(String sql, int from) {
+    int i = from;
+    while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) i++;
+    return i < sql.length() && sql.charAt(i) == '(';
+  }
+
+  private static int indexOfWord(String sql, String word, int from) {
+    Matcher matcher = Pattern.compile("\\b" + word + "\\b", Pattern.CASE_INSENSITIVE).matcher(sql);
+    return matcher.find(from) ? matcher.start() : -1;
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.' || c == '`' || c == '"';
+  }
+
+  // Strips quotes and table qualifier, e.g. `users`.`name` -> name
+  private static String unquote(String identifier) {
+    String column = identifier.trim().replace("`", "").replace("\"", "");
+    int dot = column.lastIndexOf('.');
+    return dot == -1 ? column : column.substring(dot + 1);
+  }
+
+  private static String formatValue(@Nullable Object value) {
+    if (value == null) return "NULL";
+    String string = String.valueOf(value);
+    if (string.length() > MAX_VALUE_LENGTH) {
+      string = string.substring(0, MAX_VALUE_LENGTH) + "...";
+    }
+    return value instanceof CharSequence ? "'" + string + "'" : string;
+  }
+
+}
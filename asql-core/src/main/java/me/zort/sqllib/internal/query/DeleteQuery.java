@@ -51,9 +51,7 @@ public class DeleteQuery extends AncestorQueryNode implements Executive, Conditi
   public QueryDetails buildQueryDetails() {
     Objects.requireNonNull(table, "Table cannot be null!");
 
-    return new QueryDetails.Builder("DELETE FROM " + table)
-            .build()
-            .append(buildInnerQuery());
+    return buildInnerQuery(new QueryDetails.Builder("DELETE FROM " + table).build());
   }
 
   @Override
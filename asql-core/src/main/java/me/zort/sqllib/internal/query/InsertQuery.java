@@ -4,11 +4,10 @@ import lombok.Getter;
 import me.zort.sqllib.api.Executive;
 import me.zort.sqllib.SQLDatabaseConnection;
 import me.zort.sqllib.internal.exception.IllegalStatementOperationException;
-import me.zort.sqllib.util.Encoding;
-import me.zort.sqllib.util.Util;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 public class InsertQuery extends AncestorQueryNode implements Executive, Conditional<InsertQuery> {
@@ -16,7 +15,9 @@ public class InsertQuery extends AncestorQueryNode implements Executive, Conditi
   @Getter
   private String table;
   private String[] defs;
-  private String[] values;
+  private Object[] values;
+  // Additional rows, see row(Object...)
+  private final List<Object[]> rows = new ArrayList<>();
   private int currPhIndex = 0;
 
   @Getter
@@ -35,7 +36,7 @@ public class InsertQuery extends AncestorQueryNode implements Executive, Conditi
     this.table = table;
     this.connection = connection;
     this.defs = new String[0];
-    this.values = new String[0];
+    this.values = new Object[0];
   }
 
   public InsertQuery into(String table, String... defs) {
@@ -50,53 +51,61 @@ public class InsertQuery extends AncestorQueryNode implements Executive, Conditi
 
   // Used internally
   public InsertQuery appendVal(Object val) {
-    String[] newValues = new String[values.length + 1];
+    Object[] newValues = new Object[values.length + 1];
     System.arraycopy(values, 0, newValues, 0, values.length);
-    newValues[values.length] = handleVal(val);
+    newValues[values.length] = val;
     this.values = newValues;
     return this;
   }
 
   public InsertQuery values(Object... values) {
-    String[] vals = new String[values.length];
-    for (int i = 0; i < values.length; i++) {
-      Object obj = values[i];
-      vals[i] = handleVal(obj);
-    }
-    this.values = vals;
+    this.values = values.clone();
     return this;
   }
 
-  private String handleVal(Object obj) {
-    if (obj instanceof String) {
-      obj = Encoding.handleTo((String) obj);
-    }
-    return Util.buildQuoted(obj);
+  /**
+   * Adds a row of values, so multiple rows are inserted using
+   * single statement (INSERT INTO ... VALUES (...), (...)).
+   * Rows are inserted after values set by {@link InsertQuery#values(Object...)},
+   * if any.
+   *
+   * @param values Values of the row, same count as definitions.
+   * @return This query.
+   */
+  public InsertQuery row(Object... values) {
+    rows.add(values.clone());
+    return this;
   }
 
   @Override
   public QueryDetails buildQueryDetails() {
     Objects.requireNonNull(table, "Table cannot be null!");
-    if (defs.length != values.length) {
-      throw new IllegalStatementOperationException("Definition count must be same as values count!");
+    List<Object[]> rows = new ArrayList<>(this.rows.size() + 1);
+    if (values.length > 0 || this.rows.isEmpty()) rows.add(values);
+    rows.addAll(this.rows);
+    for (Object[] row : rows) {
+      if (defs.length != row.length) {
+        throw new IllegalStatementOperationException("Definition count must be same as values count!");
+      }
     }
 
     QueryDetails details = new QueryDetails.Builder(String.format("INSERT INTO %s ", table)).build();
 
     insertArray(details, defs, false);
     details.append(" VALUES ");
-    insertArray(details, values, true);
-
-    details.append(buildInnerQuery());
+    for (int i = 0; i < rows.size(); i++) {
+      if (i > 0) details.append(", ");
+      insertArray(details, rows.get(i), true);
+    }
 
-    return details;
+    return buildInnerQuery(details);
   }
 
-  private void insertArray(QueryDetails details, String[] array, boolean usePlaceholders) {
+  private void insertArray(QueryDetails details, Object[] array, boolean usePlaceholders) {
     details.append("(");
-    for (String obj : array) {
+    for (Object obj : array) {
       String placeholder = nextPlaceholder();
-      if (!details.getQueryStr().endsWith("("))
+      if (!details.endsWith("("))
         details.append(", ");
 
       if (usePlaceholders) {
@@ -104,7 +113,7 @@ public class InsertQuery extends AncestorQueryNode implements Executive, Conditi
                 .placeholder(placeholder, obj)
                 .build());
       } else {
-        details.append(obj);
+        details.append(String.valueOf(obj));
       }
     }
     details.append(")");
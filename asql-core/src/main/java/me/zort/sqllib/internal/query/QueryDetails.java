@@ -2,9 +2,12 @@ package me.zort.sqllib.internal.query;
 
 import com.google.gson.Gson;
 import lombok.*;
-import me.zort.sqllib.SQLConnectionRegistry;
+import me.zort.sqllib.SQLDatabaseConnectionImpl;
+import me.zort.sqllib.cache.StatementCache;
+import me.zort.sqllib.internal.impl.QueryTrace;
 import me.zort.sqllib.util.Pair;
-import me.zort.sqllib.util.Util;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -13,24 +16,26 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.function.IntConsumer;
 
-@AllArgsConstructor
-@Getter
 public class QueryDetails {
 
   public static QueryDetails empty() {
     return new QueryDetails();
   }
 
-  @Setter(AccessLevel.PROTECTED)
-  private String queryStr;
+  private final StringBuilder query;
+  @Getter
   private final Map<String, Object> values;
 
   public QueryDetails() { // Equiv to empty()
     this("", new HashMap<>());
   }
 
+  public QueryDetails(String queryStr, Map<String, Object> values) {
+    this.query = new StringBuilder(queryStr);
+    this.values = values;
+  }
+
   public QueryDetails append(QueryDetails other) {
     return append("", other);
   }
@@ -38,67 +43,84 @@ public class QueryDetails {
   public QueryDetails append(String prefix, QueryDetails other) {
     Objects.requireNonNull(other, "QueryDetails cannot be null!");
 
-    append(prefix + other.queryStr);
+    query.append(prefix).append(other.query);
     other.values.forEach(values::putIfAbsent);
     return this;
   }
 
   public QueryDetails append(String s) {
-    queryStr += s;
+    query.append(s);
     return this;
   }
 
+  public boolean endsWith(String suffix) {
+    int offset = query.length() - suffix.length();
+    return offset >= 0 && query.indexOf(suffix, offset) == offset;
+  }
+
+  public String getQueryStr() {
+    return query.toString();
+  }
+
+  protected void setQueryStr(String queryStr) {
+    query.setLength(0);
+    query.append(queryStr);
+  }
+
   // Creates prepared statement for execution in SQlDatabaseConnectionImpl class.
   protected PreparedStatement prepare(Connection connection) throws SQLException {
+    return prepare(connection, null);
+  }
+
+  // Same as above, but reuses statements from the cache if provided.
+  protected PreparedStatement prepare(Connection connection, @Nullable StatementCache cache) throws SQLException {
+    return prepare(connection, cache, null, null);
+  }
+
+  // Same as above, logging the statement to its owner connection and
+  // recording the building to the trace if provided.
+  protected PreparedStatement prepare(Connection connection,
+                                      @Nullable StatementCache cache,
+                                      @Nullable SQLDatabaseConnectionImpl owner,
+                                      @Nullable QueryTrace trace) throws SQLException {
     Pair<String, Object[]> requirements = buildStatementDetails();
+    if (trace != null) trace.built(requirements.getFirst(), requirements.getSecond());
 
     // Shows plain query for prepared statement.
-    SQLConnectionRegistry.debug(connection, String.format("P-Query: %s", requirements.getFirst()));
-    SQLConnectionRegistry.debug(connection, String.format("P-Values: %s", Arrays.toString(requirements.getSecond())));
+    if (owner != null) {
+      owner.debug(() -> String.format("P-Query: %s", requirements.getFirst()));
+      owner.debug(() -> String.format("P-Values: %s", Arrays.toString(requirements.getSecond())));
+    }
 
-    PreparedStatement statement = connection.prepareStatement(requirements.getFirst());
-    Object[] values = requirements.getSecond();
-    for (int i = 0; i < values.length; i++) {
-      set(statement, i + 1, values[i]);
+    PreparedStatement statement = cache != null
+            ? cache.prepare(connection, requirements.getFirst())
+            : connection.prepareStatement(requirements.getFirst());
+    try {
+      bind(statement, requirements.getSecond());
+    } catch (SQLException e) {
+      if (cache != null) cache.release(statement);
+      else statement.close();
+      throw e;
     }
     return statement;
   }
 
   protected Pair<String, Object[]> buildStatementDetails() {
-    String query = queryStr;
-    Map<Integer, Object> valuesUnsorted = new HashMap<>();
-
-    int i = 0;
-    String queryCloned = query;
-    for (String placeholder : this.values.keySet()) {
-      Object value = this.values.get(placeholder);
-
-      placeholder = String.format("<%s>", placeholder);
-
-      if (Util.count(queryStr, placeholder) != 1)
-        throw new RuntimeException("Placeholder " + placeholder + " is not unique in query " + queryStr);
-
-      valuesUnsorted.put(queryCloned.indexOf(placeholder), value);
-      query = query.replaceAll(placeholder, "?");
+    return QueryTemplate.of(query.toString()).render(values);
+  }
 
-      i++;
+  /**
+   * Sets provided values as parameters of the statement, in order.
+   *
+   * @param statement The statement.
+   * @param values    Parameter values.
+   * @throws SQLException If a parameter cannot be set.
+   */
+  @ApiStatus.Internal
+  public static void bind(PreparedStatement statement, Object[] values) throws SQLException {
+    for (int i = 0; i < values.length; i++) {
+      set(statement, i + 1, values[i]);
     }
-
-    Object[] values = new Object[valuesUnsorted.size()];
-    valuesUnsorted.keySet()
-            .stream()
-            .mapToInt(Integer::intValue)
-            .sorted().forEach(new IntConsumer() {
-              private int index = 0;
-
-              @Override
-              public void accept(int value) {
-                values[index] = valuesUnsorted.get(value);
-                index++;
-              }
-            });
-
-    return new Pair<>(query, values);
   }
 
   private static void set(PreparedStatement statement, int index, Object value) throws SQLException {
@@ -129,11 +151,11 @@ public class QueryDetails {
   }
 
   public int length() {
-    return queryStr.length();
+    return query.length();
   }
 
   public String toString() {
-    return "QueryDetails{str=" + queryStr + ", values=" + new Gson().toJson(values) + "}";
+    return "QueryDetails{str=" + query + ", values=" + new Gson().toJson(values) + "}";
   }
 
   @RequiredArgsConstructor
@@ -8,6 +8,8 @@ import me.zort.sqllib.api.*;
 import me.zort.sqllib.api.data.QueryResult;
 import me.zort.sqllib.api.data.QueryRowsResult;
 import me.zort.sqllib.api.data.Row;
+import me.zort.sqllib.cache.StatementCache;
+import me.zort.sqllib.internal.impl.QueryTrace;
 import me.zort.sqllib.internal.exception.InvalidConnectionInstanceException;
 import me.zort.sqllib.internal.exception.NoLinkedConnectionException;
 import me.zort.sqllib.util.Pair;
@@ -18,8 +20,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Represents a query builder node, a part of a query builder flow.
@@ -34,8 +37,8 @@ public abstract class QueryNode<P extends QueryNode<?>> implements Query, Statem
 
   @Getter(onMethod_ = {@Nullable})
   private final transient P parent;
+  // Kept sorted by priority, see then(QueryNode)
   private final List<QueryNode<?>> children;
-  private final Map<String, QueryDetails> details;
   private final int priority;
 
   public QueryNode(@Nullable P parent, List<QueryNode<?>> initial, QueryPriority priority) {
@@ -46,7 +49,8 @@ public abstract class QueryNode<P extends QueryNode<?>> implements Query, Statem
     this.parent = parent;
     this.children = initial;
     this.priority = priority;
-    this.details = new ConcurrentHashMap<>();
+    if (initial.size() > 1)
+      initial.sort(Comparator.comparingInt(QueryNode::getPriority));
   }
 
   /**
@@ -98,42 +102,84 @@ public abstract class QueryNode<P extends QueryNode<?>> implements Query, Statem
 
   @Override
   public PreparedStatement prepare(Connection connection) throws SQLException {
-    return details.remove(buildQuery()).prepare(connection);
+    return prepare(connection, null);
   }
 
+  /**
+   * Prepares the statement like {@link QueryNode#prepare(Connection)}, but
+   * reuses statements from provided cache. Statement prepared this way
+   * should be returned using {@link StatementCache#release(PreparedStatement)}.
+   *
+   * @param connection The connection to use.
+   * @param cache      The statement cache, or null to prepare a new statement.
+   * @return The prepared statement.
+   * @throws SQLException If an error occurs while preparing.
+   */
+  public PreparedStatement prepare(Connection connection, @Nullable StatementCache cache) throws SQLException {
+    return prepare(connection, cache, resolveOwner());
+  }
+
+  /**
+   * Prepares the statement like {@link QueryNode#prepare(Connection, StatementCache)},
+   * logging debug messages to provided connection.
+   *
+   * @param connection The connection to use.
+   * @param cache      The statement cache, or null to prepare a new statement.
+   * @param owner      Connection that executes the statement, or null to not log.
+   * @return The prepared statement.
+   * @throws SQLException If an error occurs while preparing.
+   */
   @ApiStatus.Internal
-  @Override
-  public String buildQuery() {
+  public PreparedStatement prepare(Connection connection,
+                                   @Nullable StatementCache cache,
+                                   @Nullable SQLDatabaseConnectionImpl owner) throws SQLException {
+    return prepare(connection, cache, owner, null);
+  }
+
+  // Same as above, recording query building to the trace.
+  @ApiStatus.Internal
+  public PreparedStatement prepare(Connection connection,
+                                   @Nullable StatementCache cache,
+                                   @Nullable SQLDatabaseConnectionImpl owner,
+                                   @Nullable QueryTrace trace) throws SQLException {
     QueryDetails queryDetails = buildQueryDetails();
 
-    if (isAncestor())
-      debug(String.format("Query: %s", queryDetails.getQueryStr()));
+    if (owner != null && isAncestor())
+      owner.debug(() -> String.format("Query: %s", queryDetails.getQueryStr()));
 
-    String uuid = UUID.randomUUID().toString();
-    details.put(uuid, queryDetails);
-    return uuid;
+    return queryDetails.prepare(connection, cache, owner, trace);
   }
 
   @ApiStatus.Internal
-  public QueryDetails buildInnerQuery() {
-    List<QueryNode<?>> children = new ArrayList<>(this.children);
-    children.sort(Comparator.comparingInt(QueryNode::getPriority));
-
-    QueryDetails details = new QueryDetails("", new HashMap<>());
+  @Override
+  public String buildQuery() {
+    return buildQueryDetails().buildStatementDetails().getFirst();
+  }
 
-    if (children.isEmpty()) {
-      return QueryDetails.empty();
-    }
+  @ApiStatus.Internal
+  public QueryDetails buildInnerQuery() {
+    return buildInnerQuery(QueryDetails.empty());
+  }
 
+  /**
+   * Appends details of all inner nodes in order of their priority
+   * to provided details.
+   *
+   * @param target The details to append to.
+   * @return The target details.
+   */
+  @ApiStatus.Internal
+  public QueryDetails buildInnerQuery(QueryDetails target) {
+    boolean first = true;
     for (QueryNode<?> inner : children) {
-      if (details.length() > 0)
-        details.append(" ");
+      if (!first)
+        target.append(" ");
 
-      QueryDetails innerDetails = inner.getDetails().get(inner.buildQuery());
-      details.append(innerDetails);
+      target.append(inner.buildQueryDetails());
+      first = false;
     }
 
-    return details;
+    return target;
   }
 
   @Nullable
@@ -158,10 +204,7 @@ public abstract class QueryNode<P extends QueryNode<?>> implements Query, Statem
   }
 
   public QueryNode<?> then(String part) {
-    int maxPriority = children.stream()
-            .map(QueryNode::getPriority)
-            .max(Comparator.naturalOrder())
-            .orElse(0);
+    int maxPriority = children.isEmpty() ? 0 : children.get(children.size() - 1).getPriority();
 
     then(new QueryNode<QueryNode<?>>(parent, Collections.emptyList(), maxPriority + 1) {
       @Override
@@ -173,7 +216,13 @@ public abstract class QueryNode<P extends QueryNode<?>> implements Query, Statem
   }
 
   public <T extends QueryNode<?>> QueryNode<T> then(QueryNode<T> part) {
-    this.children.add(part);
+    // Insert after all nodes with lower or same priority, so children
+    // don't need to be sorted again on every build.
+    int index = children.size();
+    while (index > 0 && children.get(index - 1).getPriority() > part.getPriority()) {
+      index--;
+    }
+    this.children.add(index, part);
     return part;
   }
 
@@ -211,6 +260,26 @@ public abstract class QueryNode<P extends QueryNode<?>> implements Query, Statem
     return invokeToConnection(connection -> connection.query(getAncestor(), mapTo));
   }
 
+  public CompletableFuture<QueryRowsResult<Row>> obtainAllAsync() {
+    requireResultSetAware();
+    return invokeToConnection(connection -> connection.queryAsync(getAncestor()));
+  }
+
+  public <T> CompletableFuture<QueryRowsResult<T>> obtainAllAsync(Class<T> mapTo) {
+    requireResultSetAware();
+    return invokeToConnection(connection -> connection.queryAsync(getAncestor(), mapTo));
+  }
+
+  public Stream<Row> stream() {
+    requireResultSetAware();
+    return invokeToConnection(connection -> connection.stream(getAncestor()));
+  }
+
+  public <T> Stream<T> stream(Class<T> mapTo) {
+    requireResultSetAware();
+    return invokeToConnection(connection -> connection.stream(getAncestor(), mapTo));
+  }
+
   private void requireResultSetAware() {
     if (!generatesResultSet()) {
       throw new IllegalStateException("This query node is not ResultSetAware! (Did you mean execute()?)");
@@ -229,11 +298,14 @@ public abstract class QueryNode<P extends QueryNode<?>> implements Query, Statem
     return this instanceof ResultSetAware;
   }
 
-  private void debug(String message) {
-    if (getAncestor() instanceof Executive
-            && ((Executive) getAncestor()).getConnection() instanceof SQLDatabaseConnectionImpl) {
-      ((SQLDatabaseConnectionImpl) ((Executive) getAncestor()).getConnection()).debug(message);
+  @Nullable
+  private SQLDatabaseConnectionImpl resolveOwner() {
+    QueryNode<?> ancestor = getAncestor();
+    if (ancestor instanceof Executive
+            && ((Executive) ancestor).getConnection() instanceof SQLDatabaseConnectionImpl) {
+      return (SQLDatabaseConnectionImpl) ((Executive) ancestor).getConnection();
     }
+    return null;
   }
 
   @SuppressWarnings("unused")
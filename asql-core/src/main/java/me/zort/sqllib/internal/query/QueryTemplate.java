@@ -0,0 +1,161 @@
+package me.zort.sqllib.internal.query;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import me.zort.sqllib.util.Pair;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tokenized form of a query string with &lt;placeholder&gt; marks, as
+ * produced by {@link QueryNode#buildQueryDetails()}. The string is scanned
+ * only once per query shape, further builds only pick values in order
+ * of their placeholders.
+ */
+final class QueryTemplate {
+
+  private static final Cache<String, QueryTemplate> TEMPLATES = CacheBuilder.newBuilder()
+          .maximumSize(1024)
+          .build();
+
+  /**
+   * Returns tokenized template for provided query string, either
+   * cached or freshly compiled.
+   *
+   * @param query Query string with placeholders.
+   * @return The template.
+   */
+  @NotNull
+  static QueryTemplate of(final @NotNull String query) {
+    QueryTemplate template = TEMPLATES.getIfPresent(query);
+    if (template == null) {
+      template = compile(query);
+      TEMPLATES.put(query, template);
+    }
+    return template;
+  }
+
+  // Literal parts surrounding the placeholders, parts.length == names.length + 1
+  private final String[] parts;
+  private final String[] names;
+  // Placeholder names occurring more than once
+  private final Set<String> duplicates;
+  // Query with all placeholders replaced with question marks
+  private final String sql;
+
+  private QueryTemplate(String[] parts, String[] names, Set<String> duplicates) {
+    this.parts = parts;
+    this.names = names;
+    this.duplicates = duplicates;
+
+    StringBuilder sb = new StringBuilder(parts[0]);
+    for (int i = 0; i < names.length; i++) {
+      sb.append('?').append(parts[i + 1]);
+    }
+    this.sql = sb.toString();
+  }
+
+  /**
+   * Renders query string for PreparedStatement and its parameters
+   * ordered as they appear in the query.
+   *
+   * @param values Placeholder values (names without brackets).
+   * @return Pair of query string with question marks and parameters.
+   */
+  Pair<String, Object[]> render(final @NotNull Map<String, Object> values) {
+    Object[] params = new Object[values.size()];
+    boolean[] literal = null;
+    int count = 0;
+    for (int i = 0; i < names.length; i++) {
+      String name = names[i];
+      if (values.containsKey(name)) {
+        if (duplicates.contains(name)) {
+          throw new RuntimeException("Placeholder <" + name + "> is not unique in query " + this);
+        }
+        params[count++] = values.get(name);
+      } else {
+        // Not a value placeholder, part of the query itself.
+        if (literal == null) literal = new boolean[names.length];
+        literal[i] = true;
+      }
+    }
+    if (count != params.length) {
+      for (String name : values.keySet()) {
+        if (!contains(name)) {
+          throw new RuntimeException("Placeholder <" + name + "> is not unique in query " + this);
+        }
+      }
+    }
+    if (literal == null) {
+      return new Pair<>(sql, params);
+    }
+
+    StringBuilder sb = new StringBuilder(parts[0]);
+    for (int i = 0; i < names.length; i++) {
+      if (literal[i]) sb.append('<').append(names[i]).append('>');
+      else sb.append('?');
+      sb.append(parts[i + 1]);
+    }
+    return new Pair<>(sb.toString(), params);
+  }
+
+  private boolean contains(String name) {
+    for (String n : names) {
+      if (n.equals(name)) return true;
+    }
+    return false;
+  }
+
+  // Single pass over the query string, placeholder is any <...> without
+  // whitespace and nested brackets in it.
+  private static QueryTemplate compile(String query) {
+    List<String> parts = new ArrayList<>();
+    List<String> names = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    Set<String> duplicates = new HashSet<>();
+    int length = query.length();
+    int last = 0;
+    int i = 0;
+    while (i < length) {
+      if (query.charAt(i) != '<') {
+        i++;
+        continue;
+      }
+      int end = i + 1;
+      while (end < length && isNameChar(query.charAt(end))) {
+        end++;
+      }
+      if (end < length && end > i + 1 && query.charAt(end) == '>') {
+        String name = query.substring(i + 1, end);
+        parts.add(query.substring(last, i));
+        names.add(name);
+        if (!seen.add(name)) duplicates.add(name);
+        last = end + 1;
+        i = last;
+      } else {
+        i = end;
+      }
+    }
+    parts.add(query.substring(last));
+    return new QueryTemplate(parts.toArray(new String[0]), names.toArray(new String[0]), duplicates);
+  }
+
+  private static boolean isNameChar(char c) {
+    return c != '<' && c != '>' && !Character.isWhitespace(c);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(parts[0]);
+    for (int i = 0; i < names.length; i++) {
+      sb.append('<').append(names[i]).append('>').append(parts[i + 1]);
+    }
+    return sb.toString();
+  }
+
+}
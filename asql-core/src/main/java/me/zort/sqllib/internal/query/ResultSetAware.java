@@ -5,6 +5,8 @@ import me.zort.sqllib.api.data.QueryRowsResult;
 import me.zort.sqllib.api.data.Row;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * Represents a query node that can handle a result set,
@@ -26,4 +28,24 @@ public interface ResultSetAware extends Query {
 
   <T> QueryRowsResult<T> obtainAll(Class<T> mapTo);
 
+  /**
+   * Executes the query on async executor of the linked connection.
+   *
+   * @return Future completed with the rows.
+   * @see me.zort.sqllib.SQLDatabaseConnection#queryAsync(Query)
+   */
+  CompletableFuture<QueryRowsResult<Row>> obtainAllAsync();
+
+  <T> CompletableFuture<QueryRowsResult<T>> obtainAllAsync(Class<T> mapTo);
+
+  /**
+   * Executes the query and returns a stream reading rows as it's
+   * consumed. The stream must be closed after use.
+   *
+   * @return Stream of rows.
+   */
+  Stream<Row> stream();
+
+  <T> Stream<T> stream(Class<T> mapTo);
+
 }
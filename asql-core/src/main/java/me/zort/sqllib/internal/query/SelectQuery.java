@@ -64,7 +64,7 @@ public class SelectQuery extends AncestorQueryNode implements
             table))
             .build();
 
-    return details.append(buildInnerQuery());
+    return buildInnerQuery(details);
   }
 
   @Override
@@ -60,7 +60,7 @@ public class UpdateQuery extends AncestorQueryNode implements Executive, Conditi
   public QueryDetails buildQueryDetails() {
     Objects.requireNonNull(table, "Table cannot be null!");
 
-    return new QueryDetails.Builder("UPDATE " + table).build().append(buildInnerQuery());
+    return buildInnerQuery(new QueryDetails.Builder("UPDATE " + table).build());
   }
 
   @Override
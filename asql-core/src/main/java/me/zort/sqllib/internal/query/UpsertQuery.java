@@ -40,6 +40,11 @@ public class UpsertQuery extends InsertQuery {
     return (UpsertQuery) super.values(values);
   }
 
+  @Override
+  public UpsertQuery row(Object... values) {
+    return (UpsertQuery) super.row(values);
+  }
+
   public SetStatement<InsertQuery> onDuplicateKey(String column, Object value) {
     SetStatement<InsertQuery> stmt = onDuplicateKey();
     stmt.and(column, value);
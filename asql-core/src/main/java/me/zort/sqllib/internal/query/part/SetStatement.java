@@ -62,7 +62,7 @@ public class SetStatement<P extends QueryNode<?> & Conditional<P>> extends Query
 
       String placeholder = nextPlaceholder();
 
-      if (!details.getQueryStr().equals(" SET "))
+      if (details.length() != " SET ".length())
         details.append(", ");
 
       details.append(new QueryDetails.Builder(String.format("%s = <%s>", name, placeholder))
@@ -53,7 +53,7 @@ public class WhereStatement<P extends QueryNode<?>> extends QueryNode<P> impleme
     QueryDetails details = new QueryDetails(column + " IN (", new HashMap<>());
     for (Object obj : objs) {
 
-      if (!details.getQueryStr().endsWith("("))
+      if (!details.endsWith("("))
         details.append(", ");
 
       String placeholder = nextPlaceholder();
@@ -105,7 +105,7 @@ public class WhereStatement<P extends QueryNode<?>> extends QueryNode<P> impleme
       for (QueryDetails _details : conditions) {
         String condition = _details.getQueryStr();
 
-        if (!details.getQueryStr().equals(" WHERE ") && !condition.equals(" OR ") && !details.getQueryStr().endsWith(" OR ")) {
+        if (details.length() != " WHERE ".length() && !condition.equals(" OR ") && !details.endsWith(" OR ")) {
           details.append(" AND ");
         }
 
@@ -9,11 +9,12 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public class DefaultResultAdapter implements StatementMappingResultAdapter {
   @Override
   public Object adaptResult(Method method, QueryResult result) {
-    Class<?> returnType = method.getReturnType();
+    Class<?> returnType = resolveReturnType(method);
     if (returnType.equals(QueryResult.class)) {
       return result;
     } else if (isVoid(returnType) || !(result instanceof QueryRowsResult)) {
@@ -29,8 +30,14 @@ public class DefaultResultAdapter implements StatementMappingResultAdapter {
   @Override
   public Class<?> retrieveResultType(Method method) {
     Class<?> returnType = method.getReturnType();
+    Type genericReturnType = method.getGenericReturnType();
+    if (returnType.equals(CompletableFuture.class)) {
+      // CompletableFuture<List<T>>
+      genericReturnType = getGenericType(genericReturnType);
+      returnType = rawType(genericReturnType);
+    }
     if (returnType.equals(Optional.class) || returnType.equals(List.class)) {
-      return getGenericArgument(returnType, method.getGenericReturnType(), true);
+      return getGenericArgument(returnType, genericReturnType, true);
     } else if (isVoid(returnType)) {
       return null;
     } else {
@@ -38,6 +45,14 @@ public class DefaultResultAdapter implements StatementMappingResultAdapter {
     }
   }
 
+  // Type the result is adapted to, inner type for CompletableFuture.
+  private static Class<?> resolveReturnType(Method method) {
+    Class<?> returnType = method.getReturnType();
+    return returnType.equals(CompletableFuture.class)
+            ? rawType(getGenericType(method.getGenericReturnType()))
+            : returnType;
+  }
+
   private static <T> Object noResult(Class<T> returnType, boolean successful) {
     if (Optional.class.isAssignableFrom(returnType)) return Optional.empty();
     if (List.class.isAssignableFrom(returnType)) return new QueryRowsResult<T>(successful);
@@ -63,6 +78,19 @@ public class DefaultResultAdapter implements StatementMappingResultAdapter {
     }
   }
 
+  private static Type getGenericType(Type genericType) {
+    if (!(genericType instanceof ParameterizedType)) {
+      throw new IllegalArgumentException("The given type does not have a generic argument");
+    }
+    return ((ParameterizedType) genericType).getActualTypeArguments()[0];
+  }
+
+  private static Class<?> rawType(Type type) {
+    if (type instanceof ParameterizedType) return (Class<?>) ((ParameterizedType) type).getRawType();
+    if (type instanceof Class) return (Class<?>) type;
+    throw new IllegalArgumentException("Unsupported type: " + type.getTypeName());
+  }
+
   private static boolean isVoid(Class<?> type) {
     return type.equals(void.class) || type.equals(Void.class);
   }
@@ -6,11 +6,13 @@ import me.zort.sqllib.api.mapping.MappingProxyInstance;
 import me.zort.sqllib.api.mapping.StatementMappingFactory;
 import me.zort.sqllib.api.mapping.StatementMappingOptions;
 import me.zort.sqllib.api.mapping.StatementMappingRegistry;
+import me.zort.sqllib.internal.impl.BoundedExecutor;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 
 import java.lang.reflect.Proxy;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
@@ -81,7 +83,8 @@ public class MappingProvider {
         instanceReference.set(new ProxyInstanceImpl<>(mappingInterface,
                 options,
                 mappingFactory.strategy(mappingInterface, connectionFactory),
-                mappingFactory.resultAdapter()));
+                mappingFactory.resultAdapter(),
+                task -> getAsyncExecutor().execute(task)));
 
         MappingProxyInstance<T> proxyInstanceWrapper = instanceReference.get();
         mappingRegistry.registerProxy(proxyInstanceWrapper);
@@ -104,6 +107,17 @@ public class MappingProvider {
         this.connectionFactory = connectionFactory;
     }
 
+    /**
+     * Returns executor used by async queries and mapping methods
+     * returning {@link java.util.concurrent.CompletableFuture}.
+     *
+     * @return The executor.
+     */
+    @NotNull
+    public Executor getAsyncExecutor() {
+        return BoundedExecutor.sharedExecutor();
+    }
+
     @ApiStatus.Experimental
     public StatementMappingRegistry getMappingRegistry() {
         return mappingRegistry;
@@ -2,6 +2,7 @@ package me.zort.sqllib.mapping;
 
 import lombok.Getter;
 import me.zort.sqllib.JVM;
+import me.zort.sqllib.internal.impl.BoundedExecutor;
 import me.zort.sqllib.api.data.QueryResult;
 import me.zort.sqllib.api.mapping.MappingProxyInstance;
 import me.zort.sqllib.api.mapping.StatementMappingOptions;
@@ -16,7 +17,9 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
 /**
  * Proxy instance invocation handler and reference.
@@ -32,6 +35,8 @@ public class ProxyInstanceImpl<T> implements MappingProxyInstance<T> {
   private final StatementMappingOptions options;
   private final StatementMappingStrategy<T> statementMapping;
   private final StatementMappingResultAdapter mappingResultAdapter;
+  // Runs mapping methods returning CompletableFuture
+  private final Executor asyncExecutor;
 
   private final List<Method> pendingMethods = new CopyOnWriteArrayList<>();
 
@@ -39,10 +44,19 @@ public class ProxyInstanceImpl<T> implements MappingProxyInstance<T> {
                            StatementMappingOptions options,
                            StatementMappingStrategy<T> statementMappingStrategy,
                            StatementMappingResultAdapter mappingResultAdapter) {
+    this(typeClass, options, statementMappingStrategy, mappingResultAdapter, BoundedExecutor.sharedExecutor());
+  }
+
+  public ProxyInstanceImpl(Class<T> typeClass,
+                           StatementMappingOptions options,
+                           StatementMappingStrategy<T> statementMappingStrategy,
+                           StatementMappingResultAdapter mappingResultAdapter,
+                           Executor asyncExecutor) {
     this.typeClass = typeClass;
     this.options = options;
     this.statementMapping = statementMappingStrategy;
     this.mappingResultAdapter = mappingResultAdapter;
+    this.asyncExecutor = asyncExecutor;
   }
 
   @Override
@@ -51,6 +65,12 @@ public class ProxyInstanceImpl<T> implements MappingProxyInstance<T> {
     Class<?> declaringClass = method.getDeclaringClass();
     if ((declaringClass.isInterface() || Modifier.isAbstract(declaringClass.getModifiers()))
             && statementMapping.isMappingMethod(method)) {
+      if (CompletableFuture.class.equals(method.getReturnType())) {
+        // Adapter adapts the result to type inside the future.
+        return CompletableFuture.supplyAsync(() -> statementMapping.executeQuery(options, method, args,
+                        mappingResultAdapter.retrieveResultType(method)), asyncExecutor)
+                .thenApply(result -> mappingResultAdapter.adaptResult(method, result));
+      }
       // Prepare and execute query based on invoked method.
       QueryResult result = statementMapping.executeQuery(options, method, args, mappingResultAdapter.retrieveResultType(method));
       // Adapt QueryResult to method return type.
@@ -0,0 +1,245 @@
+package me.zort.sqllib.pool;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Holds connections of a {@link SQLConnectionPool} and hands them over
+ * between borrowing threads, in style of HikariCP's ConcurrentBag.
+ * <p>
+ * Borrowing thread first tries connections it used recently (unless
+ * disabled for virtual threads), then all connections in the bag, both
+ * without locking. If there is no free
+ * connection, the thread is parked until another thread returns one,
+ * which is handed directly to the longest waiting thread.
+ * <p>
+ * State of each connection is kept in {@link PooledSQLDatabaseConnection#bagState}
+ * and changed only using compare-and-set.
+ */
+final class ConnectionBag {
+
+  static final int STATE_NOT_IN_USE = 0;
+  static final int STATE_IN_USE = 1;
+  static final int STATE_REMOVED = -1;
+  // Not in use, but held by the pool itself (e.g. while validating)
+  static final int STATE_RESERVED = -2;
+
+  // Max count of recently used connections remembered per thread
+  private static final int MAX_THREAD_LOCAL = 16;
+  private static final long MIN_HANDOFF_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+  private static final long MAX_HANDOFF_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  private final CopyOnWriteArrayList<PooledSQLDatabaseConnection> sharedList = new CopyOnWriteArrayList<>();
+  // Null if recently used connections are not remembered
+  @Nullable
+  private final ThreadLocal<List<WeakReference<PooledSQLDatabaseConnection>>> threadList;
+  private final AtomicInteger waiters = new AtomicInteger();
+  // Count of connections in STATE_IN_USE
+  private final AtomicInteger inUse = new AtomicInteger();
+  // Fair, so waiting threads are served in order of their arrival.
+  private final SynchronousQueue<PooledSQLDatabaseConnection> handoffQueue = new SynchronousQueue<>(true);
+
+  /**
+   * @param threadAffinity Whether connections used by a thread are remembered
+   *                       and tried first when it borrows again.
+   */
+  ConnectionBag(boolean threadAffinity) {
+    this.threadList = threadAffinity
+            ? ThreadLocal.withInitial(() -> new ArrayList<>(MAX_THREAD_LOCAL))
+            : null;
+  }
+
+  /**
+   * Borrows a free connection without waiting.
+   *
+   * @return The connection, or null if there is no free connection.
+   */
+  @Nullable
+  PooledSQLDatabaseConnection poll() {
+    if (threadList != null) {
+      List<WeakReference<PooledSQLDatabaseConnection>> list = threadList.get();
+      for (int i = list.size() - 1; i >= 0; i--) {
+        PooledSQLDatabaseConnection connection = list.remove(i).get();
+        if (connection != null && claim(connection)) {
+          return connection;
+        }
+      }
+    }
+    if (waiters.get() > 0) {
+      // Free connections belong to threads that already wait.
+      return null;
+    }
+    for (PooledSQLDatabaseConnection connection : sharedList) {
+      if (claim(connection)) {
+        return connection;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Waits up to provided timeout for a connection returned
+   * by another thread.
+   *
+   * @param timeout Max time to wait.
+   * @param unit    Unit of the timeout.
+   * @return The connection, or null if none was returned in time.
+   * @throws InterruptedException If the thread is interrupted while waiting.
+   */
+  @Nullable
+  PooledSQLDatabaseConnection await(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+    waiters.incrementAndGet();
+    try {
+      // Connection could be returned before this thread has been registered.
+      for (PooledSQLDatabaseConnection connection : sharedList) {
+        if (claim(connection)) {
+          return connection;
+        }
+      }
+      long remaining = unit.toNanos(timeout);
+      while (remaining > 0) {
+        long start = System.nanoTime();
+        PooledSQLDatabaseConnection connection = handoffQueue.poll(remaining, TimeUnit.NANOSECONDS);
+        if (connection == null || claim(connection)) {
+          return connection;
+        }
+        remaining -= System.nanoTime() - start;
+      }
+      return null;
+    } finally {
+      waiters.decrementAndGet();
+    }
+  }
+
+  /**
+   * Returns borrowed connection to the bag, handing it to
+   * a waiting thread if there is any.
+   *
+   * @param connection The connection.
+   * @return True if the connection was in use and has been returned.
+   */
+  boolean requite(@NotNull PooledSQLDatabaseConnection connection) {
+    if (!connection.bagState.compareAndSet(STATE_IN_USE, STATE_NOT_IN_USE)) {
+      // Already returned or removed.
+      return false;
+    }
+    inUse.decrementAndGet();
+    handoff(connection);
+
+    if (threadList != null) {
+      List<WeakReference<PooledSQLDatabaseConnection>> list = threadList.get();
+      if (list.size() < MAX_THREAD_LOCAL) {
+        list.add(new WeakReference<>(connection));
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Adds new connection to the bag. The connection is added as in use,
+   * to the caller, if borrowed is true.
+   *
+   * @param connection The connection.
+   * @param borrowed   Whether the caller uses the connection.
+   */
+  void add(@NotNull PooledSQLDatabaseConnection connection, boolean borrowed) {
+    connection.bagState.set(borrowed ? STATE_IN_USE : STATE_NOT_IN_USE);
+    if (borrowed) inUse.incrementAndGet();
+    sharedList.add(connection);
+    if (!borrowed) handoff(connection);
+  }
+
+  /**
+   * Removes a connection from the bag, regardless of its state.
+   *
+   * @param connection The connection.
+   * @return True if the connection was in the bag.
+   */
+  boolean remove(@NotNull PooledSQLDatabaseConnection connection) {
+    int previous = connection.bagState.getAndSet(STATE_REMOVED);
+    if (previous == STATE_REMOVED) {
+      return false;
+    }
+    if (previous == STATE_IN_USE) inUse.decrementAndGet();
+    return sharedList.remove(connection);
+  }
+
+  /**
+   * Marks free connection as reserved, so it cannot be borrowed.
+   *
+   * @param connection The connection.
+   * @return True if the connection was free and is now reserved.
+   */
+  boolean reserve(@NotNull PooledSQLDatabaseConnection connection) {
+    return connection.bagState.compareAndSet(STATE_NOT_IN_USE, STATE_RESERVED);
+  }
+
+  void unreserve(@NotNull PooledSQLDatabaseConnection connection) {
+    if (connection.bagState.compareAndSet(STATE_RESERVED, STATE_NOT_IN_USE)) {
+      handoff(connection);
+    }
+  }
+
+  /**
+   * Returns snapshot of connections in provided state.
+   *
+   * @param state The state.
+   * @return The connections.
+   */
+  List<PooledSQLDatabaseConnection> values(int state) {
+    List<PooledSQLDatabaseConnection> result = new ArrayList<>();
+    for (PooledSQLDatabaseConnection connection : sharedList) {
+      if (connection.bagState.get() == state) result.add(connection);
+    }
+    return result;
+  }
+
+  List<PooledSQLDatabaseConnection> values() {
+    return new ArrayList<>(sharedList);
+  }
+
+  int size() {
+    return sharedList.size();
+  }
+
+  int getWaitingThreadCount() {
+    return waiters.get();
+  }
+
+  int getInUseCount() {
+    return inUse.get();
+  }
+
+  private boolean claim(PooledSQLDatabaseConnection connection) {
+    if (connection.bagState.compareAndSet(STATE_NOT_IN_USE, STATE_IN_USE)) {
+      inUse.incrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  // Offers free connection to waiting threads until one takes it,
+  // or it's borrowed by another thread in the meantime. The thread parks
+  // between attempts instead of spinning, so it doesn't hold a (carrier)
+  // thread a registered waiter needs to start polling.
+  private void handoff(PooledSQLDatabaseConnection connection) {
+    long backoff = MIN_HANDOFF_BACKOFF_NANOS;
+    while (waiters.get() > 0) {
+      if (connection.bagState.get() != STATE_NOT_IN_USE || handoffQueue.offer(connection)) {
+        return;
+      }
+      LockSupport.parkNanos(backoff);
+      backoff = Math.min(backoff * 2, MAX_HANDOFF_BACKOFF_NANOS);
+    }
+  }
+
+}
@@ -0,0 +1,77 @@
+package me.zort.sqllib.pool;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds. Values are counted in
+ * logarithmic buckets, each power of two split into {@link LatencyRecorder#SUB_BUCKETS}
+ * linear ones, so percentiles are accurate to about 12.5%.
+ */
+final class LatencyRecorder {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder total = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+  void record(long nanos) {
+    if (nanos < 0) nanos = 0;
+    buckets.incrementAndGet(index(nanos));
+    count.increment();
+    total.add(nanos);
+    max.accumulate(nanos);
+  }
+
+  PoolMetrics.Histogram snapshot() {
+    long[] counts = new long[BUCKETS];
+    long sum = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets.get(i);
+      sum += counts[i];
+    }
+    long max = this.max.get();
+    return new PoolMetrics.Histogram(
+            count.sum(),
+            sum > 0 ? total.sum() / Math.max(count.sum(), 1) : 0L,
+            percentile(counts, sum, 0.5, max),
+            percentile(counts, sum, 0.95, max),
+            percentile(counts, sum, 0.99, max),
+            max);
+  }
+
+  private static long percentile(long[] counts, long sum, double percentile, long max) {
+    if (sum == 0) return 0L;
+    long rank = (long) Math.ceil(sum * percentile);
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(upperBound(i), max);
+      }
+    }
+    return max;
+  }
+
+  private static int index(long value) {
+    if (value < SUB_BUCKETS) return (int) value;
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  // Highest value counted in bucket with provided index.
+  private static long upperBound(int index) {
+    if (index < SUB_BUCKETS) return index;
+    int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long subBucket = index % SUB_BUCKETS;
+    long lowerBound = (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+  }
+
+}
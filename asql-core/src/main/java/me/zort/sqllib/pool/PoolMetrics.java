@@ -0,0 +1,73 @@
+package me.zort.sqllib.pool;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of {@link SQLConnectionPool} metrics, see {@link SQLConnectionPool#getMetrics()}.
+ * Counters are totals since the pool has been created, durations are in nanoseconds.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class PoolMetrics {
+
+  // Time getResource() took, including opening new connections
+  private final Histogram borrowWait;
+  // Time between borrowing and returning a connection
+  private final Histogram usage;
+
+  // Connections currently borrowed
+  private final int active;
+  // Connections currently free in the pool
+  private final int idle;
+  // Threads currently waiting for a connection
+  private final int pending;
+  private final int total;
+
+  private final long createdCount;
+  private final long validatedCount;
+  // Connections closed by the pool (idle, expired, invalid or failed)
+  private final long evictedCount;
+  // Borrows that failed because the pool was exhausted
+  private final long timeoutCount;
+  // Connections reported by leak detection
+  private final long leakCount;
+  private final long errorCount;
+
+  @Override
+  public String toString() {
+    return String.format("PoolMetrics{active=%d, idle=%d, pending=%d, total=%d, created=%d, validated=%d, " +
+                    "evicted=%d, timeouts=%d, leaks=%d, errors=%d, borrowWait=%s, usage=%s}",
+            active, idle, pending, total, createdCount, validatedCount,
+            evictedCount, timeoutCount, leakCount, errorCount, borrowWait, usage);
+  }
+
+  /**
+   * Distribution of recorded durations, in nanoseconds.
+   * Percentiles are approximate.
+   */
+  @Getter
+  @AllArgsConstructor(access = AccessLevel.PACKAGE)
+  public static final class Histogram {
+    private final long count;
+    private final long mean;
+    private final long p50;
+    private final long p95;
+    private final long p99;
+    private final long max;
+
+    @Override
+    public String toString() {
+      return String.format("{count=%d, mean=%.3fms, p50=%.3fms, p95=%.3fms, p99=%.3fms, max=%.3fms}",
+              count, millis(mean), millis(p50), millis(p95), millis(p99), millis(max));
+    }
+
+    private static double millis(long nanos) {
+      return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+  }
+
+}
@@ -1,5 +1,6 @@
 package me.zort.sqllib.pool;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import me.zort.sqllib.SQLDatabaseConnection;
 import me.zort.sqllib.internal.factory.SQLConnectionFactory;
@@ -7,13 +8,35 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class PooledSQLDatabaseConnection extends SQLDatabaseConnection implements Closeable {
 
   @Getter(onMethod_ = {@Nullable})
   private SQLConnectionPool assignedPool = null;
   @Getter(onMethod_ = {@Nullable})
-  private long lastUsed = System.currentTimeMillis();
+  private volatile long lastUsed = System.currentTimeMillis();
+  // Last time the pool checked this connection is valid
+  @Getter(AccessLevel.PACKAGE)
+  private volatile long lastValidated = 0L;
+  @Getter
+  private volatile long createdAt = System.currentTimeMillis();
+  // Time when the pool closes this connection, 0 if never
+  @Getter(AccessLevel.PACKAGE)
+  private volatile long expiresAt = 0L;
+  // Closed by the pool once returned
+  @Getter(AccessLevel.PACKAGE)
+  private volatile boolean evicted = false;
+  // System.nanoTime() when borrowed from the pool, 0 if not borrowed
+  @Getter(AccessLevel.PACKAGE)
+  private volatile long borrowedAt = 0L;
+  // Where this connection was borrowed, if captured by leak detection
+  @Getter(AccessLevel.PACKAGE)
+  private volatile Throwable borrowTrace = null;
+  @Getter(AccessLevel.PACKAGE)
+  private volatile boolean leakReported = false;
+  // State in the pool, see ConnectionBag
+  final AtomicInteger bagState = new AtomicInteger(ConnectionBag.STATE_NOT_IN_USE);
 
   public PooledSQLDatabaseConnection(final @NotNull SQLConnectionFactory connectionFactory) {
     super(connectionFactory);
@@ -27,6 +50,34 @@ public abstract class PooledSQLDatabaseConnection extends SQLDatabaseConnection
     this.lastUsed = lastUsed;
   }
 
+  void setLastValidated(long lastValidated) {
+    this.lastValidated = lastValidated;
+  }
+
+  void setBorrowedAt(long borrowedAt) {
+    this.borrowedAt = borrowedAt;
+  }
+
+  void setBorrowTrace(Throwable borrowTrace) {
+    this.borrowTrace = borrowTrace;
+  }
+
+  void setLeakReported(boolean leakReported) {
+    this.leakReported = leakReported;
+  }
+
+  void setCreatedAt(long createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  void setExpiresAt(long expiresAt) {
+    this.expiresAt = expiresAt;
+  }
+
+  void setEvicted(boolean evicted) {
+    this.evicted = evicted;
+  }
+
   public boolean isPoolAssigned() {
     return assignedPool != null;
   }
@@ -6,15 +6,42 @@ import me.zort.sqllib.SQLDatabaseConnection;
 import me.zort.sqllib.SQLDatabaseConnectionImpl;
 import me.zort.sqllib.api.ISQLConnectionBuilder;
 import me.zort.sqllib.api.ISQLDatabaseOptions;
+import me.zort.sqllib.api.Query;
+import me.zort.sqllib.api.data.QueryResult;
+import me.zort.sqllib.api.data.QueryRowsResult;
+import me.zort.sqllib.api.data.Row;
+import me.zort.sqllib.api.listener.QueryEvent;
+import me.zort.sqllib.api.listener.QueryListener;
+import me.zort.sqllib.internal.impl.BoundedExecutor;
+import me.zort.sqllib.internal.impl.ResultSetPublisher;
 import me.zort.sqllib.mapping.MappingProvider;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * A connection pool.
@@ -35,12 +62,50 @@ public final class SQLConnectionPool extends MappingProvider {
   private final boolean checkConnectionValidity;
   private final int checkConnectionValidityTimeout;
   private final ISQLDatabaseOptions connectionOptions;
+  private final long idleTimeout;
+  private final long maxLifetime;
+  private final int minIdle;
+  private final long housekeepingPeriod;
+  private final long validationInterval;
+  private final long keepaliveTime;
+  private final String poolName;
+  private final long leakDetectionThreshold;
+  private final int leakTraceSampling;
+  private final boolean reclaimLeakedConnections;
+  private final Executor asyncDelegate;
+  private final AtomicReference<QueryListener[]> queryListeners = new AtomicReference<>(new QueryListener[0]);
+  // Registered on pooled connections while the pool has any query listener
+  private final QueryListener queryDispatcher = this::fireQueryListeners;
+  private final Executor asyncExecutor;
+
+  // Max time a waiting thread is parked before checking for a free slot
+  private static final long MAX_AWAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private static final AtomicInteger poolCounter = new AtomicInteger();
+  private static final Logger logger = Logger.getGlobal();
 
   private volatile int errorCount = 0;
+  private volatile boolean closed = false;
+
+  // --***-- Metrics --***--
+  private final LatencyRecorder borrowWait = new LatencyRecorder();
+  private final LatencyRecorder usage = new LatencyRecorder();
+  private final LongAdder createdCount = new LongAdder();
+  private final LongAdder validatedCount = new LongAdder();
+  private final LongAdder evictedCount = new LongAdder();
+  private final LongAdder timeoutCount = new LongAdder();
+  private final LongAdder leakCount = new LongAdder();
+  private final AtomicLong borrowCount = new AtomicLong();
+  private ObjectName mBeanName = null;
 
   // --***-- Pooled connection caches --***--
-  private final Queue<PooledSQLDatabaseConnection> freeConnections = new ConcurrentLinkedQueue<>();
-  private final List<PooledSQLDatabaseConnection> usedConnections = new CopyOnWriteArrayList<>();
+  private final ConnectionBag bag;
+  // Guards housekeeper and error handling
+  private final ReentrantLock lock = new ReentrantLock();
+  // Count of connections in the bag or being established
+  private final AtomicInteger totalConnections = new AtomicInteger();
+  // Started with the first connection, stopped on close()
+  private ScheduledExecutorService housekeeper = null;
 
   @Data
   public static final class Options {
@@ -54,6 +119,34 @@ public final class SQLConnectionPool extends MappingProvider {
     private boolean checkConnectionValidity = true;
     // Time in seconds to wait while checking the validity of a connection
     private int checkConnectionValidityTimeout = 3;
+    // Connections used or validated within this time in milliseconds are not validated on borrow
+    private long validationInterval = 500L;
+    // Time in milliseconds after which free connections are validated by the housekeeper, 0 to disable
+    private long keepaliveTime = 0L;
+    // Time in milliseconds after which free connections are closed, 0 to never close them
+    private long idleTimeout = 300000L;
+    // Max time in milliseconds a connection lives, 0 for no limit.
+    // Each connection gets up to 2.5% shorter lifetime, so they don't expire all at once.
+    private long maxLifetime = 1800000L;
+    // Number of free connections the pool keeps open, if maxConnections allows
+    private int minIdle = 0;
+    // Time in milliseconds between housekeeping runs, 0 disables housekeeping
+    private long housekeepingPeriod = 30000L;
+    // Time in milliseconds a connection can be borrowed before it's reported as leaked, 0 to disable
+    private long leakDetectionThreshold = 0L;
+    // Borrow stack trace is captured for every n-th borrow, so leaks can be traced cheaply
+    private int leakTraceSampling = 1;
+    // Close connections reported as leaked and free their place in the pool
+    private boolean reclaimLeakedConnections = false;
+    // Name of the pool, used for JMX and housekeeper thread
+    private String poolName = null;
+    // Register metrics as JMX MBean, see SQLConnectionPoolMXBean
+    private boolean registerMBean = false;
+    // Executor running async queries, limited to maxConnections tasks at once. Null for shared daemon threads.
+    private Executor asyncExecutor = null;
+    // Optimizes the pool for virtual threads (Java 21+): async queries run in virtual threads
+    // unless asyncExecutor is set, and recently used connections are not remembered per thread.
+    private boolean virtualThreads = false;
     private ISQLDatabaseOptions connectionOptions = null;
   }
 
@@ -78,6 +171,31 @@ public final class SQLConnectionPool extends MappingProvider {
     this.checkConnectionValidity = poolOptions.checkConnectionValidity;
     this.checkConnectionValidityTimeout = poolOptions.checkConnectionValidityTimeout;
     this.connectionOptions = poolOptions.connectionOptions;
+    this.idleTimeout = poolOptions.idleTimeout;
+    this.maxLifetime = poolOptions.maxLifetime;
+    this.minIdle = Math.min(poolOptions.minIdle, poolOptions.maxConnections);
+    this.housekeepingPeriod = poolOptions.housekeepingPeriod;
+    this.validationInterval = poolOptions.validationInterval;
+    this.keepaliveTime = poolOptions.keepaliveTime;
+    this.poolName = poolOptions.poolName != null
+            ? poolOptions.poolName
+            : "asql-pool-" + poolCounter.incrementAndGet();
+    this.leakDetectionThreshold = poolOptions.leakDetectionThreshold;
+    this.leakTraceSampling = Math.max(poolOptions.leakTraceSampling, 1);
+    this.reclaimLeakedConnections = poolOptions.reclaimLeakedConnections;
+    // Virtual threads rarely borrow twice, so thread locals would only hold garbage.
+    this.bag = new ConnectionBag(!poolOptions.virtualThreads);
+    Executor asyncDelegate = poolOptions.asyncExecutor;
+    if (asyncDelegate == null) {
+      asyncDelegate = poolOptions.virtualThreads
+              ? BoundedExecutor.virtualThreadExecutor()
+              : BoundedExecutor.sharedExecutor();
+    }
+    this.asyncDelegate = asyncDelegate;
+    this.asyncExecutor = new BoundedExecutor(asyncDelegate, Math.max(maxConnections, 1));
+    if (poolOptions.registerMBean) {
+      registerMBean();
+    }
     setMConnectionFactory(() -> {
       try {
         return getResource();
@@ -85,6 +203,10 @@ public final class SQLConnectionPool extends MappingProvider {
         throw new RuntimeException(e);
       }
     });
+    if (minIdle > 0) {
+      // Min idle connections are opened before the first borrow.
+      startHousekeeper();
+    }
   }
 
   /**
@@ -96,34 +218,104 @@ public final class SQLConnectionPool extends MappingProvider {
    */
   @NotNull
   public SQLDatabaseConnection getResource() throws SQLException {
-    freeConnections.removeIf(this::expired);
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.MILLISECONDS.toNanos(borrowObjectTimeout);
     PooledSQLDatabaseConnection polled;
     do {
-      polled = freeConnections.poll();
-    } while (checkConnectionValidity && polled != null && !checkValidity(polled));
+      ensureOpen();
+      polled = bag.poll();
+      if (polled == null) {
+        polled = tryEstablishObject(true);
+      }
+      if (polled == null) {
+        if (!blockWhenExhausted) {
+          timeoutCount.increment();
+          throw new SQLException("No connections available.");
+        }
+        polled = awaitObject(deadline);
+      }
+    } while (!prepareBorrowed(polled));
 
-    if (polled == null && size() < maxConnections) {
-      polled = establishObject();
-    } else if (polled == null) {
+    long now = System.nanoTime();
+    borrowWait.record(now - start);
+    polled.setBorrowedAt(now);
+    if (leakDetectionThreshold > 0) {
+      polled.setLeakReported(false);
+      polled.setBorrowTrace(borrowCount.incrementAndGet() % leakTraceSampling == 0
+              ? new Exception("Connection borrowed from pool " + poolName)
+              : null);
+    }
+    return polled;
+  }
 
-      if (!blockWhenExhausted) {
-        throw new SQLException("No connections available.");
+  // Waits for a returned connection, or for a free slot in the pool.
+  private PooledSQLDatabaseConnection awaitObject(long deadline) throws SQLException {
+    while (true) {
+      ensureOpen();
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        timeoutCount.increment();
+        throw new SQLException("Timeout while waiting for a connection.");
       }
-
-      long start = System.currentTimeMillis();
-      while ((polled = freeConnections.poll()) == null) {
-        if (System.currentTimeMillis() - start > borrowObjectTimeout) {
-          throw new SQLException("Timeout while waiting for a connection.");
-        } else if (size() < maxConnections) {
-          polled = establishObject();
-          break;
-        }
+      PooledSQLDatabaseConnection polled;
+      try {
+        // Slots freed by dropped connections are not handed over,
+        // so they are checked at least once per max wait time.
+        polled = bag.await(Math.min(remaining, MAX_AWAIT_NANOS), TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SQLException("Interrupted while waiting for a connection.", e);
       }
+      if (polled == null) {
+        polled = tryEstablishObject(true);
+      }
+      if (polled != null) {
+        return polled;
+      }
+    }
+  }
+
+  // Drops the borrowed connection if it's not usable anymore.
+  private boolean prepareBorrowed(PooledSQLDatabaseConnection polled) throws SQLException {
+    long expiresAt = polled.getExpiresAt();
+    if (polled.isEvicted()
+            || (expiresAt > 0 && System.currentTimeMillis() >= expiresAt)
+            || (checkConnectionValidity && !recentlyAlive(polled) && !checkValidity(polled))) {
+      dropObject(polled);
+      return false;
+    }
+    return true;
+  }
+
+  @Nullable
+  private PooledSQLDatabaseConnection tryEstablishObject(boolean borrowed) throws SQLException {
+    int total;
+    do {
+      total = totalConnections.get();
+      if (total >= maxConnections) return null;
+    } while (!totalConnections.compareAndSet(total, total + 1));
+
+    PooledSQLDatabaseConnection polled;
+    try {
+      polled = establishObject();
+    } catch (SQLException | RuntimeException e) {
+      totalConnections.decrementAndGet();
+      throw e;
+    }
+    createdCount.increment();
+    bag.add(polled, borrowed);
+    if (closed) {
+      // Closed while establishing, close() could have missed it.
+      dropObject(polled, false);
+      return null;
     }
-    usedConnections.add(polled);
     return polled;
   }
 
+  private void ensureOpen() throws SQLException {
+    if (closed) throw new SQLException("Pool " + poolName + " is closed.");
+  }
+
   private PooledSQLDatabaseConnection establishObject() throws SQLException {
     SQLDatabaseConnection polled_ = builder.build(connectionOptions);
     if (!(polled_ instanceof PooledSQLDatabaseConnection))
@@ -138,62 +330,455 @@ public final class SQLConnectionPool extends MappingProvider {
 
     if (polled instanceof SQLDatabaseConnectionImpl)
       ((SQLDatabaseConnectionImpl) polled).addCodeHandler(code -> handleConnectionCode(polled, code));
+    if (queryListeners.get().length > 0)
+      polled.addQueryListener(queryDispatcher);
 
+    long now = System.currentTimeMillis();
+    polled.setCreatedAt(now);
+    if (maxLifetime > 0) {
+      long variance = maxLifetime > 10000L ? ThreadLocalRandom.current().nextLong(maxLifetime / 40) : 0L;
+      polled.setExpiresAt(now + maxLifetime - variance);
+    }
+    startHousekeeper();
     return polled;
   }
 
-  synchronized void handleConnectionCode(PooledSQLDatabaseConnection polled, int code) {
+  private void startHousekeeper() {
+    if (housekeepingPeriod <= 0 && leakDetectionThreshold <= 0) return;
+    lock.lock();
+    try {
+      if (housekeeper == null && !closed) scheduleHousekeeper();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void scheduleHousekeeper() {
+    housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, poolName + "-housekeeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (housekeepingPeriod > 0) {
+      long initialDelay = minIdle > 0 ? 0L : housekeepingPeriod;
+      housekeeper.scheduleWithFixedDelay(this::housekeep, initialDelay, housekeepingPeriod, TimeUnit.MILLISECONDS);
+    }
+    if (leakDetectionThreshold > 0) {
+      // Leaks are reported at most a quarter of the threshold late.
+      long period = Math.max(leakDetectionThreshold / 4, 10L);
+      housekeeper.scheduleWithFixedDelay(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Reports connections borrowed for longer than leak detection threshold,
+   * and closes them if reclaiming is enabled.
+   */
+  void detectLeaks() {
+    long now = System.nanoTime();
+    long threshold = TimeUnit.MILLISECONDS.toNanos(leakDetectionThreshold);
+    for (PooledSQLDatabaseConnection connection : bag.values(ConnectionBag.STATE_IN_USE)) {
+      long borrowedAt = connection.getBorrowedAt();
+      if (borrowedAt == 0L || now - borrowedAt < threshold || connection.isLeakReported()) continue;
+
+      connection.setLeakReported(true);
+      leakCount.increment();
+      String message = String.format("Connection %s of pool %s is borrowed for %d ms, possible leak%s",
+              connection, poolName, TimeUnit.NANOSECONDS.toMillis(now - borrowedAt),
+              reclaimLeakedConnections ? ", closing it." : ".");
+      Throwable trace = connection.getBorrowTrace();
+      if (trace != null) {
+        logger.log(Level.WARNING, message, trace);
+      } else {
+        logger.warning(message);
+      }
+      if (reclaimLeakedConnections) {
+        dropObject(connection);
+      }
+    }
+  }
+
+  /**
+   * Closes idle and expired free connections, validates free connections
+   * if keepalive is enabled and opens new ones to keep {@link Options#getMinIdle()}
+   * connections ready. Connections in use that outlived their lifetime
+   * are closed when returned.
+   */
+  void housekeep() {
+    try {
+      long now = System.currentTimeMillis();
+      List<PooledSQLDatabaseConnection> idle = bag.values(ConnectionBag.STATE_NOT_IN_USE);
+      int idleCount = idle.size();
+      for (PooledSQLDatabaseConnection connection : idle) {
+        boolean expired = connection.getExpiresAt() > 0 && now >= connection.getExpiresAt();
+        boolean idleExpired = idleTimeout > 0 && idleCount > minIdle && now - connection.getLastUsed() > idleTimeout;
+        if ((expired || idleExpired) && bag.reserve(connection)) {
+          dropObject(connection);
+          idleCount--;
+        }
+      }
+      if (keepaliveTime > 0) {
+        keepalive(now);
+      }
+      for (PooledSQLDatabaseConnection connection : bag.values(ConnectionBag.STATE_IN_USE)) {
+        if (connection.getExpiresAt() > 0 && now >= connection.getExpiresAt()) {
+          connection.setEvicted(true);
+        }
+      }
+
+      // Fill up to min idle connections.
+      while (bag.values(ConnectionBag.STATE_NOT_IN_USE).size() < minIdle) {
+        if (tryEstablishObject(false) == null) break;
+      }
+    } catch (SQLException | RuntimeException e) {
+      // Next run will try again.
+      logger.log(Level.WARNING, "Housekeeping of pool " + poolName + " failed.", e);
+    }
+  }
+
+  void handleConnectionCode(PooledSQLDatabaseConnection polled, int code) {
     if (code == SQLDatabaseConnection.Code.CONNECTED) {
       return;
     }
 
-    if (code >= 100) {
-      errorCount++;
+    lock.lock();
+    try {
+      if (code >= 100) {
+        errorCount++;
+      }
+      // Remove the connection from the pool and disconnect
+      // on fatal errors.
+      if (bag.remove(polled)) {
+        totalConnections.decrementAndGet();
+        evictedCount.increment();
+      }
+      if (code != SQLDatabaseConnection.Code.CLOSED) {
+        // I prevent stack overflow by closing only connections
+        // that are not already closed.
+        polled.disconnect();
+      }
+    } finally {
+      lock.unlock();
     }
-    // Remove the connection from the pool and disconnect
-    // on fatal errors.
-    freeConnections.remove(polled);
-    usedConnections.remove(polled);
-    if (code != SQLDatabaseConnection.Code.CLOSED) {
-      // I prevent stack overflow by closing only connections
-      // that are not already closed.
-      polled.disconnect();
+  }
+
+  // Validates free connections not used for keepaliveTime, off the borrow path.
+  private void keepalive(long now) {
+    for (PooledSQLDatabaseConnection connection : bag.values(ConnectionBag.STATE_NOT_IN_USE)) {
+      long lastAlive = Math.max(connection.getLastUsed(), connection.getLastValidated());
+      if (now - lastAlive < keepaliveTime || !bag.reserve(connection)) continue;
+      boolean valid;
+      try {
+        valid = checkValidity(connection);
+      } catch (SQLException e) {
+        valid = false;
+      }
+      if (valid) {
+        bag.unreserve(connection);
+      } else {
+        dropObject(connection);
+      }
     }
   }
 
   void releaseObject(PooledSQLDatabaseConnection connection) {
     connection.setLastUsed(System.currentTimeMillis());
-    freeConnections.add(connection);
-    usedConnections.remove(connection);
+    long borrowedAt = connection.getBorrowedAt();
+    if (borrowedAt != 0L) {
+      connection.setBorrowedAt(0L);
+      usage.record(System.nanoTime() - borrowedAt);
+    }
+    if (connection.isLeakReported()) {
+      connection.setLeakReported(false);
+      logger.info(String.format("Connection %s previously reported as leaked was returned to pool %s.", connection, poolName));
+    }
+    connection.setBorrowTrace(null);
+    if (closed) {
+      dropObject(connection, false);
+      return;
+    }
+    if (connection.isEvicted()) {
+      dropObject(connection);
+      return;
+    }
+    if (!bag.requite(connection) && connection.bagState.get() == ConnectionBag.STATE_REMOVED) {
+      // Removed while borrowed (e.g. reclaimed as leaked or after an error),
+      // but it could have been connected again since.
+      connection.disconnect();
+    }
+  }
+
+  private void dropObject(PooledSQLDatabaseConnection connection) {
+    dropObject(connection, true);
+  }
+
+  private void dropObject(PooledSQLDatabaseConnection connection, boolean evicted) {
+    if (bag.remove(connection)) {
+      totalConnections.decrementAndGet();
+      if (evicted) evictedCount.increment();
+    }
+    connection.disconnect();
   }
 
-  private boolean checkValidity(SQLDatabaseConnection connection) throws SQLException {
+  // Connection used or validated a moment ago is considered valid.
+  private boolean recentlyAlive(PooledSQLDatabaseConnection connection) {
+    long lastAlive = Math.max(connection.getLastUsed(), connection.getLastValidated());
+    return System.currentTimeMillis() - lastAlive < validationInterval;
+  }
+
+  private boolean checkValidity(PooledSQLDatabaseConnection connection) throws SQLException {
     if (!connection.isConnected()) return false;
     assert connection.getConnection() != null;
-    return connection.getConnection().isValid(checkConnectionValidityTimeout);
+    validatedCount.increment();
+    boolean valid = connection.getConnection().isValid(checkConnectionValidityTimeout);
+    if (valid) connection.setLastValidated(System.currentTimeMillis());
+    return valid;
+  }
+
+  /**
+   * Performs query on a connection borrowed from the pool for the
+   * time of the query. Async queries never run on more than
+   * maxConnections connections at once.
+   *
+   * @param query     The query.
+   * @param typeClass Type class of objects in result.
+   * @param <T>       Type of objects in result.
+   * @return Future completed with the result.
+   */
+  public <T> CompletableFuture<QueryRowsResult<T>> queryAsync(final @NotNull Query query, final @NotNull Class<T> typeClass) {
+    return supplyAsync(connection -> connection.query(query, typeClass));
+  }
+
+  public CompletableFuture<QueryRowsResult<Row>> queryAsync(final @NotNull Query query) {
+    return supplyAsync(connection -> connection.query(query));
+  }
+
+  public CompletableFuture<QueryResult> execAsync(final @NotNull Query query) {
+    return supplyAsync(connection -> connection.exec(query));
+  }
+
+  /**
+   * Returns a publisher of mapped rows, see {@link SQLDatabaseConnection#publish(Query, Class)}.
+   * Each subscription borrows a connection once it requests rows, and returns
+   * it on completion, error or cancellation.
+   *
+   * @param query     The query.
+   * @param typeClass Type class of objects in result.
+   * @param <T>       Type of objects in result.
+   * @return Publisher of row objects.
+   */
+  public <T> Flow.Publisher<T> publish(final @NotNull Query query, final @NotNull Class<T> typeClass) {
+    // Subscriptions are already limited by count of connections. Bounded executor
+    // could be exhausted by queries waiting for connections held by subscriptions.
+    return new ResultSetPublisher<>(() -> {
+      SQLDatabaseConnection connection = getResource();
+      try {
+        return connection.stream(query, typeClass).onClose(connection::close);
+      } catch (RuntimeException e) {
+        connection.close();
+        throw e;
+      }
+    }, asyncDelegate);
+  }
+
+  @NotNull
+  @Override
+  public Executor getAsyncExecutor() {
+    return asyncExecutor;
+  }
+
+  private <T> CompletableFuture<T> supplyAsync(Function<SQLDatabaseConnection, T> action) {
+    return CompletableFuture.supplyAsync(() -> {
+      try (SQLDatabaseConnection connection = getResource()) {
+        return action.apply(connection);
+      } catch (SQLException e) {
+        throw new CompletionException(e);
+      }
+    }, asyncExecutor);
+  }
+
+  /**
+   * Registers a listener notified after each query on any connection
+   * of this pool, see {@link SQLDatabaseConnection#addQueryListener(QueryListener)}.
+   *
+   * @param listener The listener.
+   */
+  public void addQueryListener(final @NotNull QueryListener listener) {
+    Objects.requireNonNull(listener, "Listener cannot be null!");
+    QueryListener[] previous = queryListeners.getAndUpdate(listeners -> {
+      QueryListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+      updated[listeners.length] = listener;
+      return updated;
+    });
+    if (previous.length == 0) {
+      bag.values().forEach(connection -> connection.addQueryListener(queryDispatcher));
+    }
+  }
+
+  public void removeQueryListener(final @NotNull QueryListener listener) {
+    QueryListener[] updated = queryListeners.updateAndGet(listeners -> Arrays.stream(listeners)
+            .filter(l -> l != listener)
+            .toArray(QueryListener[]::new));
+    if (updated.length == 0) {
+      // Connections don't trace queries without listeners.
+      bag.values().forEach(connection -> connection.removeQueryListener(queryDispatcher));
+    }
+  }
+
+  private void fireQueryListeners(QueryEvent event) {
+    for (QueryListener listener : queryListeners.get()) {
+      try {
+        listener.onQuery(event);
+      } catch (RuntimeException e) {
+        logger.log(Level.WARNING, "Query listener " + listener + " failed.", e);
+      }
+    }
   }
 
   public int size() {
-    return usedConnections.size() + freeConnections.size();
+    return bag.size();
   }
 
   public int errorCount() {
     return errorCount;
   }
 
+  /**
+   * Returns snapshot of pool metrics. Metrics are recorded
+   * without locking, so the snapshot is not atomic.
+   *
+   * @return The metrics.
+   */
+  @NotNull
+  public PoolMetrics getMetrics() {
+    int active = bag.getInUseCount();
+    int idle = Math.max(bag.size() - active, 0);
+    return new PoolMetrics(borrowWait.snapshot(), usage.snapshot(),
+            active, idle, bag.getWaitingThreadCount(), totalConnections.get(),
+            createdCount.sum(), validatedCount.sum(), evictedCount.sum(), timeoutCount.sum(),
+            leakCount.sum(), errorCount);
+  }
+
+  public String getPoolName() {
+    return poolName;
+  }
+
+  public boolean isClosed() {
+    return closed;
+  }
+
+  private void registerMBean() {
+    try {
+      ObjectName name = new ObjectName("me.zort.sqllib:type=SQLConnectionPool,name=" + ObjectName.quote(poolName));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBeanImpl(), name);
+      mBeanName = name;
+    } catch (JMException e) {
+      // E.g. another pool with the same name is registered.
+      logger.log(Level.WARNING, "Failed to register MBean of pool " + poolName + ".", e);
+    }
+  }
+
   /**
    * Closes all connections in the pool and
-   * clears the caches.
+   * clears the caches. Connections borrowed at the time
+   * are closed when returned, and no more connections
+   * can be borrowed.
    */
   public void close() {
-    usedConnections.forEach(SQLDatabaseConnection::disconnect);
-    freeConnections.forEach(SQLDatabaseConnection::disconnect);
-    usedConnections.clear();
-    freeConnections.clear();
+    lock.lock();
+    try {
+      closed = true;
+      if (housekeeper != null) {
+        housekeeper.shutdownNow();
+        housekeeper = null;
+      }
+    } finally {
+      lock.unlock();
+    }
+    bag.values().forEach(connection -> dropObject(connection, false));
+    if (mBeanName != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(mBeanName);
+      } catch (JMException ignored) {
+      }
+      mBeanName = null;
+    }
   }
 
-  private boolean expired(PooledSQLDatabaseConnection connection) {
-    return System.currentTimeMillis() - connection.getLastUsed() > 1000 * 60 * 5;
+  private final class MXBeanImpl implements SQLConnectionPoolMXBean {
+    @Override
+    public int getActiveConnections() {
+      return bag.getInUseCount();
+    }
+
+    @Override
+    public int getIdleConnections() {
+      return Math.max(bag.size() - bag.getInUseCount(), 0);
+    }
+
+    @Override
+    public int getPendingThreads() {
+      return bag.getWaitingThreadCount();
+    }
+
+    @Override
+    public int getTotalConnections() {
+      return totalConnections.get();
+    }
+
+    @Override
+    public double getBorrowWaitP50Millis() {
+      return millis(borrowWait.snapshot().getP50());
+    }
+
+    @Override
+    public double getBorrowWaitP99Millis() {
+      return millis(borrowWait.snapshot().getP99());
+    }
+
+    @Override
+    public double getBorrowWaitMaxMillis() {
+      return millis(borrowWait.snapshot().getMax());
+    }
+
+    @Override
+    public double getUsageP99Millis() {
+      return millis(usage.snapshot().getP99());
+    }
+
+    @Override
+    public long getCreatedCount() {
+      return createdCount.sum();
+    }
+
+    @Override
+    public long getValidatedCount() {
+      return validatedCount.sum();
+    }
+
+    @Override
+    public long getEvictedCount() {
+      return evictedCount.sum();
+    }
+
+    @Override
+    public long getTimeoutCount() {
+      return timeoutCount.sum();
+    }
+
+    @Override
+    public long getLeakCount() {
+      return leakCount.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+      return errorCount;
+    }
+
+    private double millis(long nanos) {
+      return nanos / 1_000_000.0;
+    }
   }
 
 }
@@ -0,0 +1,38 @@
+package me.zort.sqllib.pool;
+
+/**
+ * JMX view of {@link SQLConnectionPool} metrics, registered
+ * if {@link SQLConnectionPool.Options#isRegisterMBean()} is enabled.
+ * Durations are in milliseconds.
+ */
+public interface SQLConnectionPoolMXBean {
+
+  int getActiveConnections();
+
+  int getIdleConnections();
+
+  int getPendingThreads();
+
+  int getTotalConnections();
+
+  double getBorrowWaitP50Millis();
+
+  double getBorrowWaitP99Millis();
+
+  double getBorrowWaitMaxMillis();
+
+  double getUsageP99Millis();
+
+  long getCreatedCount();
+
+  long getValidatedCount();
+
+  long getEvictedCount();
+
+  long getTimeoutCount();
+
+  long getLeakCount();
+
+  long getErrorCount();
+
+}
@@ -0,0 +1,105 @@
+package me.zort.sqllib.util;
+
+import lombok.experimental.UtilityClass;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Normalizes SQL so that queries differing only in literal values
+ * (or count of values in a list) are considered the same.
+ * <p>
+ * Example: {@code SELECT * FROM users WHERE id IN (1, 2,  3) AND name = 'John'}
+ * is normalized to {@code SELECT * FROM users WHERE id IN (?) AND name = ?}.
+ */
+@UtilityClass
+public final class SqlFingerprint {
+
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  /**
+   * Replaces string and numeric literals with placeholders, collapses
+   * lists of placeholders to one and whitespace to single spaces.
+   *
+   * @param sql The SQL.
+   * @return The normalized SQL.
+   */
+  public static String normalize(final @NotNull String sql) {
+    StringBuilder builder = new StringBuilder(sql.length());
+    int length = sql.length();
+    int i = 0;
+    while (i < length) {
+      char c = sql.charAt(i);
+      if (Character.isWhitespace(c)) {
+        while (i < length && Character.isWhitespace(sql.charAt(i))) i++;
+        if (builder.length() > 0 && i < length) builder.append(' ');
+      } else if (c == '\'') {
+        // String literal, '' is an escaped quote.
+        i++;
+        while (i < length) {
+          if (sql.charAt(i) == '\'') {
+            if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+              i += 2;
+              continue;
+            }
+            break;
+          }
+          i++;
+        }
+        i++;
+        appendPlaceholder(builder);
+      } else if (c == '"' || c == '`') {
+        // Quoted identifier, kept as is.
+        int end = sql.indexOf(c, i + 1);
+        end = end == -1 ? length : end + 1;
+        builder.append(sql, i, end);
+        i = end;
+      } else if (Character.isDigit(c) && !isIdentifierEnd(builder)) {
+        while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) i++;
+        appendPlaceholder(builder);
+      } else if (c == '?') {
+        i++;
+        appendPlaceholder(builder);
+      } else {
+        builder.append(c);
+        i++;
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Returns 64-bit hash of the normalized SQL, see {@link SqlFingerprint#normalize(String)}.
+   *
+   * @param sql The SQL.
+   * @return The fingerprint.
+   */
+  public static long fingerprint(final @NotNull String sql) {
+    String normalized = normalize(sql);
+    long hash = FNV_OFFSET;
+    for (int i = 0; i < normalized.length(); i++) {
+      hash ^= normalized.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+
+  // Appends ?, unless it continues a list of placeholders.
+  private static void appendPlaceholder(StringBuilder builder) {
+    int end = builder.length();
+    if (end >= 2 && builder.charAt(end - 1) == ',' && builder.charAt(end - 2) == '?') {
+      builder.setLength(end - 1);
+    } else if (end >= 3 && builder.charAt(end - 1) == ' ' && builder.charAt(end - 2) == ',' && builder.charAt(end - 3) == '?') {
+      builder.setLength(end - 2);
+    } else {
+      builder.append('?');
+    }
+  }
+
+  // Digits right after an identifier are part of it (e.g. table1).
+  private static boolean isIdentifierEnd(StringBuilder builder) {
+    if (builder.length() == 0) return false;
+    char last = builder.charAt(builder.length() - 1);
+    return Character.isLetterOrDigit(last) || last == '_' || last == '$';
+  }
+
+}
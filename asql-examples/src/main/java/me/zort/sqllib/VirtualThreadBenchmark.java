@@ -0,0 +1,97 @@
+package me.zort.sqllib;
+
+import me.zort.sqllib.api.data.QueryRowsResult;
+import me.zort.sqllib.api.data.Row;
+import me.zort.sqllib.pool.PoolMetrics;
+import me.zort.sqllib.pool.SQLConnectionPool;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures throughput of a pool with many concurrent callers on SQLite,
+ * each borrowing a connection and running one query.
+ * <p>
+ * Usage: VirtualThreadBenchmark [callers] [maxConnections]
+ * <p>
+ * On Java 21+, callers are virtual threads and the pool runs in virtual
+ * thread mode. On older JVMs, platform threads are used instead.
+ */
+public class VirtualThreadBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    int callers = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    int maxConnections = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+    boolean virtual = JVM.isVirtualThreadsSupported();
+
+    File file = File.createTempFile("asql-benchmark", ".db");
+    file.deleteOnExit();
+    prepare(file);
+
+    SQLConnectionPool.Options options = new SQLConnectionPool.Options();
+    options.setMaxConnections(maxConnections);
+    options.setBorrowObjectTimeout(TimeUnit.MINUTES.toMillis(1));
+    options.setVirtualThreads(virtual);
+    SQLConnectionPool pool = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).createPool(options);
+
+    ExecutorService executor = virtual
+            ? JVM.newVirtualThreadPerTaskExecutor()
+            : Executors.newFixedThreadPool(Math.min(callers, 512));
+    System.out.printf("Running %d %s callers on %d connections...%n",
+            callers, virtual ? "virtual thread" : "platform thread", maxConnections);
+
+    // Warm up connections and statement caches.
+    run(pool, executor, Math.min(callers, 1000));
+    long start = System.nanoTime();
+    int failed = run(pool, executor, callers);
+    long elapsed = System.nanoTime() - start;
+
+    PoolMetrics metrics = pool.getMetrics();
+    System.out.printf("%d queries in %.1f ms, %.0f queries/s, %d failed%n",
+            callers, elapsed / 1e6, callers / (elapsed / 1e9), failed);
+    System.out.println(metrics);
+
+    executor.shutdown();
+    pool.close();
+    file.delete();
+  }
+
+  private static void prepare(File file) {
+    SQLDatabaseConnection connection = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).build();
+    if (!connection.connect()) {
+      throw new IllegalStateException("Failed to open the database!");
+    }
+    connection.exec("CREATE TABLE IF NOT EXISTS users (id INTEGER PRIMARY KEY, name TEXT)");
+    for (int i = 0; i < 100; i++) {
+      connection.insert().into("users", "id", "name").values(i, "User" + i).execute();
+    }
+    connection.disconnect();
+  }
+
+  private static int run(SQLConnectionPool pool, ExecutorService executor, int callers) throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(callers);
+    AtomicInteger failed = new AtomicInteger();
+    for (int i = 0; i < callers; i++) {
+      int id = i % 100;
+      executor.execute(() -> {
+        try (SQLDatabaseConnection connection = pool.getResource()) {
+          QueryRowsResult<Row> result = connection.select().from("users").where().isEqual("id", id).obtainAll();
+          if (!result.isSuccessful() || result.isEmpty()) {
+            failed.incrementAndGet();
+          }
+        } catch (Exception e) {
+          failed.incrementAndGet();
+        } finally {
+          latch.countDown();
+        }
+      });
+    }
+    latch.await();
+    return failed.get();
+  }
+
+}
@@ -7,7 +7,10 @@ public final class Encoding {
    *
    * @param s String to be encoded.
    * @return Encoded string.
+   * @deprecated Values are bound as statement parameters and
+   * don't need to be escaped.
    */
+  @Deprecated
   public static String handleTo(String s) {
     return s.replaceAll("'", "''");
   }
@@ -0,0 +1,1059 @@
+package me.zort.sqllib.test;
+
+import com.google.gson.Gson;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import me.zort.sqllib.JVM;
+import me.zort.sqllib.SQLConnectionBuilder;
+import me.zort.sqllib.SQLDatabaseConnection;
+import me.zort.sqllib.SQLDatabaseConnectionImpl;
+import me.zort.sqllib.SQLDatabaseOptions;
+import me.zort.sqllib.SQLiteDatabaseConnection;
+import me.zort.sqllib.api.DefsVals;
+import me.zort.sqllib.api.ObjectMapper;
+import me.zort.sqllib.api.data.BatchQueryResult;
+import me.zort.sqllib.api.data.QueryRowsResult;
+import me.zort.sqllib.api.data.Lazy;
+import me.zort.sqllib.api.data.Row;
+import me.zort.sqllib.api.data.RowHeader;
+import me.zort.sqllib.api.listener.QueryEvent;
+import me.zort.sqllib.api.listener.QueryListener;
+import me.zort.sqllib.cache.StatementCache;
+import me.zort.sqllib.internal.annotation.LinkedOne;
+import me.zort.sqllib.internal.annotation.PrimaryKey;
+import me.zort.sqllib.internal.impl.BoundedExecutor;
+import me.zort.sqllib.internal.impl.DefaultObjectMapper;
+import me.zort.sqllib.internal.impl.QueryTrace;
+import me.zort.sqllib.internal.impl.SlowQueryLog;
+import me.zort.sqllib.internal.query.QueryNode;
+import me.zort.sqllib.internal.query.SelectQuery;
+import me.zort.sqllib.internal.query.UpsertQuery;
+import me.zort.sqllib.mapping.annotation.Limit;
+import me.zort.sqllib.mapping.annotation.Placeholder;
+import me.zort.sqllib.mapping.annotation.Select;
+import me.zort.sqllib.mapping.annotation.Table;
+import me.zort.sqllib.mapping.annotation.Where;
+import me.zort.sqllib.pool.PoolMetrics;
+import me.zort.sqllib.pool.SQLConnectionPool;
+import me.zort.sqllib.util.SqlFingerprint;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.AnnotatedElement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Log4j2
+@EnabledOnOs(value = {OS.LINUX, OS.WINDOWS})
+@TestMethodOrder(MethodOrderer.MethodName.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TestCase4 { // Performance features (SQLite)
+
+  private static final String table = "users";
+  private File file;
+  private SQLDatabaseConnection connection;
+
+  @BeforeAll
+  public void prepare() throws IOException {
+    file = File.createTempFile("asql-test", ".db");
+    file.deleteOnExit();
+    SQLDatabaseOptions options = new SQLDatabaseOptions();
+    options.setStatementCacheSize(16);
+    connection = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).build(options);
+
+    assertTrue(connection.connect());
+    assertTrue(connection.buildEntitySchema(table, User.class));
+  }
+
+  @Test
+  public void test01_StatementCache() {
+    StatementCache cache = connection.getStatementCache();
+    assertTrue(cache.isEnabled());
+    long misses = cache.getMissCount();
+    long hits = cache.getHitCount();
+
+    for (int i = 0; i < 5; i++) {
+      assertTrue(connection.insert(table, new User("User" + i, i * 100)).isSuccessful());
+    }
+    for (int i = 0; i < 5; i++) {
+      QueryRowsResult<User> result = connection.select()
+              .from(table)
+              .where().isEqual("nickname", "User" + i)
+              .obtainAll(User.class);
+      assertTrue(result.isSuccessful());
+      assertEquals(1, result.size());
+      assertEquals(i * 100, result.get(0).getPoints());
+    }
+
+    // One miss for insert and select each, the rest are hits.
+    assertEquals(misses + 2, cache.getMissCount());
+    assertEquals(hits + 8, cache.getHitCount());
+    assertTrue(cache.getCachedQueries().contains("SELECT * FROM users WHERE nickname = ?"));
+
+    connection.disconnect();
+    assertEquals(0, cache.size());
+    assertTrue(connection.connect());
+  }
+
+  @Test
+  public void test02_PlaceholderRendering() {
+    QueryRowsResult<User> result = connection.select()
+            .from(table)
+            .where().lt("points", 250)
+            .and().in("nickname", "User0", "User2", "User4")
+            .obtainAll(User.class);
+    assertTrue(result.isSuccessful());
+    assertEquals(2, result.size());
+
+    // Literal that only looks like a placeholder must be kept as is.
+    assertTrue(connection.insert(table, new User("<nq_0>", 1)).isSuccessful());
+    result = connection.query(QueryNode.fromRawQuery("SELECT * FROM users WHERE nickname = ? AND points = ?", "<nq_0>", 1), User.class);
+    assertTrue(result.isSuccessful());
+    assertEquals(1, result.size());
+    assertEquals("<nq_0>", result.get(0).getNickname());
+  }
+
+  @Test
+  public void test03_NodeOrdering() {
+    // Limit is added before where, but must be rendered after it.
+    SelectQuery query = connection.select().from(table).limit(1);
+    query.where().bt("points", 150);
+    assertEquals("SELECT * FROM users WHERE points > ? LIMIT 1", query.buildQuery().replaceAll("\\s+", " "));
+    assertEquals(query.buildQuery(), query.buildQuery());
+
+    QueryRowsResult<User> result = query.obtainAll(User.class);
+    assertTrue(result.isSuccessful());
+    assertEquals(1, result.size());
+    assertTrue(result.get(0).getPoints() > 150);
+  }
+
+  @Test
+  public void test04_Stream() {
+    assertTrue(connection.buildEntitySchema("stream_users", User.class));
+    for (int i = 0; i < 100; i++) {
+      assertTrue(connection.insert("stream_users", new User("Stream" + i, i)).isSuccessful());
+    }
+
+    try (Stream<User> stream = connection.select().from("stream_users").stream(User.class)) {
+      assertEquals(4950, stream.mapToInt(User::getPoints).sum());
+    }
+
+    // Partially consumed stream must release its cursor on close,
+    // otherwise SQLite refuses to drop the table.
+    Stream<Row> stream = connection.select().from("stream_users").stream();
+    assertEquals(10, stream.limit(10).count());
+    stream.close();
+    assertTrue(connection.exec("DROP TABLE stream_users").isSuccessful());
+  }
+
+  @Test
+  public void test05_Batch() {
+    assertTrue(connection.buildEntitySchema("batch_users", User.class));
+
+    List<User> users = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      users.add(new User("Batch" + i, i));
+    }
+    SQLDatabaseOptions options = (SQLDatabaseOptions) ((SQLDatabaseConnectionImpl) connection).getOptions();
+    int batchSize = options.getBatchSize();
+    options.setBatchSize(10); // 3 batches
+    try {
+      BatchQueryResult result = connection.insertAll("batch_users", users);
+      assertTrue(result.isSuccessful(), result.getRejectMessage());
+      assertEquals(25, result.getUpdateCounts().length);
+      assertEquals(25, result.getTotalUpdateCount());
+
+      // Duplicate primary key, whole batch is rolled back.
+      result = connection.insertAll("batch_users", Arrays.asList(new User("Batch25", 25), new User("Batch0", 0)));
+      assertFalse(result.isSuccessful());
+    } finally {
+      options.setBatchSize(batchSize);
+    }
+    assertEquals(25, connection.select().from("batch_users").obtainAll().size());
+
+    // Multi-row insert
+    assertTrue(connection.insert()
+            .into("batch_users", "nickname", "points")
+            .row("Row0", 100)
+            .row("Row1", 200)
+            .execute().isSuccessful());
+    assertEquals(27, connection.select().from("batch_users").obtainAll().size());
+    assertTrue(connection.exec("DROP TABLE batch_users").isSuccessful());
+  }
+
+  @Test
+  public void test06_NativeUpsert() {
+    SQLiteDatabaseConnection sqlite = (SQLiteDatabaseConnection) connection;
+    assertTrue(sqlite.isNativeUpsert());
+    assertTrue(connection.buildEntitySchema("upsert_users", User.class));
+
+    UpsertQuery save = connection.save("upsert_users", new User("Upsert", 1));
+    assertTrue(save.buildQuery().contains("ON CONFLICT(nickname) DO UPDATE SET points = excluded.points"));
+    assertTrue(save.execute().isSuccessful());
+    assertTrue(connection.save("upsert_users", new User("Upsert", 2)).execute().isSuccessful());
+
+    BatchQueryResult result = connection.saveAll("upsert_users", Arrays.asList(
+            new User("Upsert", 3), new User("Upsert2", 4)));
+    assertTrue(result.isSuccessful(), result.getRejectMessage());
+
+    QueryRowsResult<User> users = connection.select().from("upsert_users").obtainAll(User.class);
+    assertEquals(2, users.size());
+    assertEquals(3, users.stream().filter(u -> u.getNickname().equals("Upsert")).findFirst().get().getPoints());
+    assertTrue(connection.exec("DROP TABLE upsert_users").isSuccessful());
+  }
+
+  @Test
+  public void test07_Row() {
+    QueryRowsResult<Row> rows = connection.select().from(table).obtainAll();
+    assertTrue(rows.isSuccessful());
+    assertTrue(rows.size() >= 2);
+
+    Row row = rows.get(0);
+    assertEquals(2, row.size());
+    assertEquals(Arrays.asList("nickname", "points"), new ArrayList<>(row.keySet()));
+    assertTrue(row.containsKey("points"));
+    assertNull(row.get("unknown"));
+
+    Map<String, Object> copy = new HashMap<>(row);
+    assertEquals(copy, row);
+    assertEquals(copy.hashCode(), row.hashCode());
+
+    // Known column is stored in place, unknown detaches the row
+    // without touching other rows of the result.
+    row.put("points", -1);
+    assertEquals(-1, row.getInt("points"));
+    row.put("extra", "value");
+    assertEquals(3, row.size());
+    assertEquals("value", row.getString("extra"));
+    assertFalse(rows.get(1).containsKey("extra"));
+    row.remove("extra");
+    assertEquals(2, row.size());
+
+    // Removal through views detaches the row like remove().
+    RowHeader header = new RowHeader(new String[]{"a", "b", "c"});
+    Row removed = new Row(header, new Object[]{1, 2, 3});
+    assertTrue(removed.keySet().remove("a"));
+    assertTrue(removed.values().removeIf(value -> value.equals(2)));
+    assertEquals(Collections.singletonMap("c", 3), removed);
+    Row iterated = new Row(header, new Object[]{1, 2, 3});
+    Iterator<Map.Entry<String, Object>> iterator = iterated.entrySet().iterator();
+    iterator.next();
+    iterator.remove();
+    assertThrows(IllegalStateException.class, iterator::remove);
+    // Entry of the iterator created before detaching writes to the detached row.
+    Map.Entry<String, Object> entry = iterator.next();
+    assertEquals(2, entry.setValue(20));
+    assertEquals(20, iterated.get("b"));
+    assertEquals("c", iterator.next().getKey());
+    assertFalse(iterator.hasNext());
+    assertTrue(iterated.entrySet().removeIf(e -> e.getKey().equals("c")));
+    assertEquals(Collections.singletonMap("b", 20), iterated);
+  }
+
+  @Test
+  public void test08_RawValues() {
+    assertTrue(connection.insert(table, new User("O'Brien", 7)).isSuccessful());
+    assertTrue(connection.insert().into(table, "nickname", "points").values("It''s", 8).execute().isSuccessful());
+
+    // Values are stored and read as they are, without escaping.
+    QueryRowsResult<Row> rows = connection.query(QueryNode.fromRawQuery(
+            "SELECT nickname, points, typeof(points) AS t FROM users WHERE nickname IN (?, ?) ORDER BY points", "O'Brien", "It''s"));
+    assertEquals(2, rows.size());
+    assertEquals("O'Brien", rows.get(0).getString("nickname"));
+    assertEquals("It''s", rows.get(1).getString("nickname"));
+    assertEquals("integer", rows.get(0).getString("t"));
+  }
+
+  @Test
+  public void test09_MappingPlan() {
+    DefaultObjectMapper mapper = new DefaultObjectMapper(new Gson(), new SQLDatabaseOptions().getNamingStrategy());
+    mapper.registerAdapter(Score.class, new ObjectMapper.TypeAdapter<Score>() {
+      @Override
+      public Score deserialize(AnnotatedElement element, Row row, Object raw) {
+        return new Score(((Number) raw).intValue());
+      }
+
+      @Override
+      public Object serialize(AnnotatedElement element, Object value) {
+        return ((Score) value).value;
+      }
+    });
+
+    RowHeader header = new RowHeader(new String[]{"nickname", "points", "last_seen"});
+    for (int i = 0; i < 3; i++) {
+      Row row = new Row(header, new Object[]{"User" + i, i * 10, 1000L + i});
+      Ranking ranking = mapper.deserializeValues(row, Ranking.class);
+      assertNotNull(ranking);
+      assertEquals("User" + i, ranking.nickname);
+      assertEquals(i * 10, ranking.points.value);
+      // Resolved by column name converted using naming strategy
+      assertEquals(1000L + i, ranking.lastSeen);
+    }
+
+    // Rows without header are mapped by names.
+    Row detached = new Row(header, new Object[]{"Detached", 5, 1L});
+    detached.put("extra", true);
+    assertNull(detached.getHeader());
+    Ranking ranking = mapper.deserializeValues(detached, Ranking.class);
+    assertNotNull(ranking);
+    assertEquals("Detached", ranking.nickname);
+    assertEquals(5, ranking.points.value);
+
+    // Unnamed constructor parameters are resolved by connection resolvers.
+    User user = connection.getObjectMapper().deserializeValues(new Row(new RowHeader(new String[]{"nickname", "points"}),
+            new Object[]{"Constructed", 3}), User.class);
+    assertNotNull(user);
+    assertEquals("Constructed", user.getNickname());
+    assertEquals(3, user.getPoints());
+  }
+
+  @Test
+  public void test10_SerializationPlan() {
+    DefaultObjectMapper mapper = new DefaultObjectMapper(new Gson(), new SQLDatabaseOptions().getNamingStrategy());
+
+    DefsVals first = mapper.serializeValues(new Entry(null, "A", 1L));
+    DefsVals second = mapper.serializeValues(new Entry(null, "B", 2L));
+    // Columns are in declared order and same for all objects.
+    assertArrayEquals(new String[]{"name", "last_seen"}, first.getDefs());
+    assertSame(first.getDefs(), second.getDefs());
+    assertArrayEquals(new Object[]{"B", 2L}, second.getValues());
+
+    DefsVals withId = mapper.serializeValues(new Entry(5, "C", 3L));
+    assertArrayEquals(new String[]{"id", "name", "last_seen"}, withId.getDefs());
+    assertArrayEquals(new Object[]{5, "C", 3L}, withId.getValues());
+    assertEquals("C", withId.getVals()[1].get());
+  }
+
+  @Test
+  public void test11_LinkedOnePrefetch() {
+    assertTrue(connection.exec("CREATE TABLE IF NOT EXISTS customers (id INTEGER PRIMARY KEY, name TEXT)").isSuccessful());
+    assertTrue(connection.exec("CREATE TABLE IF NOT EXISTS orders (id INTEGER PRIMARY KEY, customer_id INTEGER)").isSuccessful());
+    for (int i = 1; i <= 3; i++) {
+      assertTrue(connection.insert().into("customers", "id", "name").values(i, "Customer" + i).execute().isSuccessful());
+    }
+    for (int i = 1; i <= 10; i++) {
+      assertTrue(connection.insert().into("orders", "id", "customer_id").values(i, i % 3 + 1).execute().isSuccessful());
+    }
+
+    StatementCache cache = connection.getStatementCache();
+    long prepared = cache.getHitCount() + cache.getMissCount();
+    QueryRowsResult<Order> orders = connection.select().from("orders").obtainAll(Order.class);
+    assertEquals(10, orders.size());
+    for (Order order : orders) {
+      assertNotNull(order.customer);
+      assertEquals(order.id % 3 + 1, order.customer.id);
+      assertEquals("Customer" + order.customer.id, order.customer.name);
+    }
+    // Orders and all customers, instead of a query per order.
+    assertEquals(prepared + 2, cache.getHitCount() + cache.getMissCount());
+  }
+
+  @Test
+  public void test12_LinkedOneLazy() throws SQLException {
+    // Uses tables from test11_LinkedOnePrefetch
+    StatementCache cache = connection.getStatementCache();
+    long prepared = cache.getHitCount() + cache.getMissCount();
+    QueryRowsResult<LazyOrder> orders = connection.select().from("orders").obtainAll(LazyOrder.class);
+    assertEquals(10, orders.size());
+    assertEquals(prepared + 1, cache.getHitCount() + cache.getMissCount());
+
+    // Orders 1 and 4 link the same customer.
+    LazyOrder first = orders.get(0);
+    LazyOrder fourth = orders.get(3);
+    assertFalse(first.customer.isLoaded());
+    assertSame(first.customer, fourth.customer);
+    assertEquals(2, first.customer.get().id);
+    assertEquals("Customer2", fourth.customer.get().name);
+    assertEquals(prepared + 2, cache.getHitCount() + cache.getMissCount());
+
+    // Pooled connection is not used after it's returned.
+    SQLConnectionPool.Options options = new SQLConnectionPool.Options();
+    options.setMaxConnections(2);
+    SQLConnectionPool pool = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).createPool(options);
+    QueryRowsResult<LazyOrder> pooledOrders;
+    SQLDatabaseConnection mapping;
+    try (SQLDatabaseConnection borrowed = pool.getResource()) {
+      mapping = borrowed;
+      pooledOrders = borrowed.select().from("orders").obtainAll(LazyOrder.class);
+    }
+    try (SQLDatabaseConnection held = pool.getResource()) {
+      assertSame(mapping, held);
+      AtomicInteger heldQueries = new AtomicInteger();
+      held.addQueryListener(event -> heldQueries.incrementAndGet());
+      assertEquals("Customer2", pooledOrders.get(0).customer.get().name);
+      assertEquals(0, heldQueries.get());
+      assertEquals(2, pool.getMetrics().getCreatedCount());
+    }
+    pool.close();
+  }
+
+  @Test
+  public void test13_PoolHandoff() throws Exception {
+    SQLConnectionPool.Options options = new SQLConnectionPool.Options();
+    options.setMaxConnections(2);
+    options.setBorrowObjectTimeout(300L);
+    SQLConnectionPool pool = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).createPool(options);
+
+    SQLDatabaseConnection first = pool.getResource();
+    SQLDatabaseConnection second = pool.getResource();
+    assertNotSame(first, second);
+    assertEquals(2, pool.size());
+
+    // Exhausted pool times out.
+    long start = System.nanoTime();
+    assertThrows(SQLException.class, pool::getResource);
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(250));
+
+    // Returned connection is handed to the waiting thread.
+    CompletableFuture<SQLDatabaseConnection> waiting = CompletableFuture.supplyAsync(() -> {
+      try {
+        return pool.getResource();
+      } catch (SQLException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    Thread.sleep(50);
+    assertFalse(waiting.isDone());
+    first.close();
+    assertSame(first, waiting.get(1, TimeUnit.SECONDS));
+    assertEquals(2, pool.size());
+
+    // Connection can't be returned twice.
+    waiting.get().close();
+    first.close();
+    second.close();
+    assertSame(second, pool.getResource());
+    assertSame(first, pool.getResource());
+
+    pool.close();
+    assertEquals(0, pool.size());
+  }
+
+  @Test
+  public void test14_PoolHousekeeping() throws Exception {
+    SQLConnectionPool.Options options = new SQLConnectionPool.Options();
+    options.setMaxConnections(3);
+    options.setIdleTimeout(100L);
+    options.setMaxLifetime(400L);
+    options.setMinIdle(1);
+    options.setHousekeepingPeriod(50L);
+    SQLConnectionPool pool = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).createPool(options);
+
+    // Min idle connections are opened before the first borrow.
+    long deadline = System.currentTimeMillis() + 1000L;
+    while (pool.size() < 1 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10L);
+    }
+    assertEquals(1, pool.size());
+
+    List<SQLDatabaseConnection> borrowed = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      borrowed.add(pool.getResource());
+    }
+    borrowed.get(0).close();
+    borrowed.get(1).close();
+    assertEquals(3, pool.size());
+
+    // Idle connections are closed down to min idle.
+    Thread.sleep(300L);
+    assertEquals(2, pool.size());
+    assertTrue(isClosed(borrowed.get(0)) || isClosed(borrowed.get(1)));
+
+    // Connection in use is closed on return after its lifetime, and replaced.
+    Thread.sleep(200L);
+    SQLDatabaseConnection last = borrowed.get(2);
+    last.close();
+    assertTrue(isClosed(last));
+    Thread.sleep(200L);
+    assertEquals(1, pool.size());
+    assertNotSame(last, pool.getResource());
+
+    pool.close();
+    assertEquals(0, pool.size());
+  }
+
+  @Test
+  public void test15_PoolValidation() throws Exception {
+    SQLConnectionPool.Options options = new SQLConnectionPool.Options();
+    options.setMaxConnections(2);
+    options.setValidationInterval(60000L);
+    options.setHousekeepingPeriod(0L);
+    SQLConnectionPool pool = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).createPool(options);
+
+    // Recently used connection is not validated.
+    SQLDatabaseConnection connection = pool.getResource();
+    connection.close();
+    connection.getConnection().close();
+    assertSame(connection, pool.getResource());
+    connection.close();
+    pool.close();
+
+    options.setValidationInterval(0L);
+    pool = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).createPool(options);
+    connection = pool.getResource();
+    connection.close();
+    connection.getConnection().close();
+    assertNotSame(connection, pool.getResource());
+    assertEquals(1, pool.size());
+    pool.close();
+
+    // Keepalive drops broken free connections in background.
+    options.setValidationInterval(60000L);
+    options.setKeepaliveTime(50L);
+    options.setHousekeepingPeriod(50L);
+    pool = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).createPool(options);
+    connection = pool.getResource();
+    connection.close();
+    connection.getConnection().close();
+    Thread.sleep(300L);
+    assertEquals(0, pool.size());
+    pool.close();
+  }
+
+  @Test
+  public void test16_PoolMetrics() throws Exception {
+    SQLConnectionPool.Options options = new SQLConnectionPool.Options();
+    options.setMaxConnections(1);
+    options.setBorrowObjectTimeout(50L);
+    options.setPoolName("metrics-test");
+    options.setRegisterMBean(true);
+    SQLConnectionPool pool = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).createPool(options);
+
+    for (int i = 0; i < 10; i++) {
+      pool.getResource().close();
+    }
+    SQLDatabaseConnection held = pool.getResource();
+    assertThrows(SQLException.class, pool::getResource);
+
+    PoolMetrics metrics = pool.getMetrics();
+    assertEquals(1, metrics.getActive());
+    assertEquals(0, metrics.getIdle());
+    assertEquals(1, metrics.getTotal());
+    assertEquals(1, metrics.getCreatedCount());
+    assertEquals(1, metrics.getTimeoutCount());
+    assertEquals(11, metrics.getBorrowWait().getCount());
+    assertEquals(10, metrics.getUsage().getCount());
+    assertTrue(metrics.getBorrowWait().getP50() <= metrics.getBorrowWait().getP99());
+    assertTrue(metrics.getBorrowWait().getP99() <= metrics.getBorrowWait().getMax());
+
+    ObjectName name = new ObjectName("me.zort.sqllib:type=SQLConnectionPool,name=\"metrics-test\"");
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    assertEquals(1, server.getAttribute(name, "ActiveConnections"));
+    assertEquals(1L, server.getAttribute(name, "TimeoutCount"));
+
+    held.close();
+    pool.close();
+    assertFalse(server.isRegistered(name));
+  }
+
+  @Test
+  public void test17_PoolLeakDetection() throws Exception {
+    SQLConnectionPool.Options options = new SQLConnectionPool.Options();
+    options.setHousekeepingPeriod(0L);
+    options.setLeakDetectionThreshold(100L);
+    options.setReclaimLeakedConnections(true);
+    SQLConnectionPool pool = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).createPool(options);
+
+    pool.getResource().close();
+    assertEquals(0, pool.getMetrics().getLeakCount());
+
+    SQLDatabaseConnection leaked = pool.getResource();
+    Thread.sleep(300L);
+    assertEquals(1, pool.getMetrics().getLeakCount());
+    assertTrue(isClosed(leaked));
+    assertEquals(0, pool.size());
+
+    // Late return of reclaimed connection is ignored.
+    leaked.close();
+    assertEquals(0, pool.size());
+
+    // Reclaimed connection connected again is closed when returned.
+    SQLDatabaseConnection reconnected = pool.getResource();
+    Thread.sleep(300L);
+    assertTrue(isClosed(reconnected));
+    assertTrue(reconnected.connect());
+    reconnected.close();
+    assertTrue(isClosed(reconnected));
+    assertEquals(0, pool.size());
+    pool.close();
+  }
+
+  @Test
+  public void test18_Async() throws Exception {
+    // Own connection, so the shared statement cache is left as is.
+    SQLDatabaseConnection connection = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).build();
+    assertTrue(connection.connect());
+    assertTrue(connection.save(table, new User("Async1", 10)).execute().isSuccessful());
+    assertTrue(connection.save(table, new User("Async2", 20)).execute().isSuccessful());
+
+    CompletableFuture<QueryRowsResult<User>> users = connection.select().from(table)
+            .where().isEqual("nickname", "Async1").obtainAllAsync(User.class);
+    assertEquals(10, users.get(5, TimeUnit.SECONDS).get(0).getPoints());
+    assertTrue(connection.execAsync(connection.update().table(table).set("points", 11)
+            .where().isEqual("nickname", "Async1").getAncestor()).get(5, TimeUnit.SECONDS).isSuccessful());
+
+    AsyncRepository repository = connection.createProxy(AsyncRepository.class);
+    assertEquals(11, repository.selectOne("Async1").get(5, TimeUnit.SECONDS).get().getPoints());
+    assertFalse(repository.selectOne("Unknown").get(5, TimeUnit.SECONDS).isPresent());
+    assertTrue(repository.selectAll().get(5, TimeUnit.SECONDS).stream().anyMatch(user -> user.getNickname().equals("Async2")));
+
+    SQLConnectionPool.Options options = new SQLConnectionPool.Options();
+    options.setMaxConnections(2);
+    SQLConnectionPool pool = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).createPool(options);
+    List<CompletableFuture<QueryRowsResult<User>>> futures = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      futures.add(pool.queryAsync(connection.select().from(table).where().isEqual("nickname", "Async2"), User.class));
+    }
+    for (CompletableFuture<QueryRowsResult<User>> future : futures) {
+      assertEquals(20, future.get(5, TimeUnit.SECONDS).get(0).getPoints());
+    }
+    assertTrue(pool.getMetrics().getCreatedCount() <= 2);
+    pool.close();
+
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    BoundedExecutor executor = new BoundedExecutor(BoundedExecutor.sharedExecutor(), 2);
+    CompletableFuture<?>[] tasks = new CompletableFuture[8];
+    for (int i = 0; i < tasks.length; i++) {
+      tasks[i] = CompletableFuture.runAsync(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          Thread.sleep(20L);
+        } catch (InterruptedException ignored) {
+        }
+        running.decrementAndGet();
+      }, executor);
+    }
+    CompletableFuture.allOf(tasks).get(5, TimeUnit.SECONDS);
+    assertEquals(2, maxRunning.get());
+
+    // Tasks rejected by the delegate stay queued.
+    AtomicBoolean reject = new AtomicBoolean();
+    AtomicInteger rejected = new AtomicInteger();
+    BoundedExecutor rejecting = new BoundedExecutor(task -> {
+      if (reject.get()) {
+        rejected.incrementAndGet();
+        throw new RejectedExecutionException();
+      }
+      BoundedExecutor.sharedExecutor().execute(task);
+    }, 1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Void> first = CompletableFuture.runAsync(() -> {
+      try {
+        release.await();
+      } catch (InterruptedException ignored) {
+      }
+    }, rejecting);
+    reject.set(true);
+    CompletableFuture<Void> second = CompletableFuture.runAsync(() -> {}, rejecting);
+    release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+    // Finished task dispatches the second one, which is rejected.
+    while (rejected.get() == 0 || rejecting.getRunningCount() > 0) Thread.sleep(1L);
+    assertEquals(1, rejecting.getQueuedCount());
+    assertThrows(RejectedExecutionException.class, () -> rejecting.execute(() -> {}));
+    assertEquals(1, rejecting.getQueuedCount());
+    reject.set(false);
+    CompletableFuture<Void> third = CompletableFuture.runAsync(() -> {}, rejecting);
+    second.get(5, TimeUnit.SECONDS);
+    third.get(5, TimeUnit.SECONDS);
+    connection.disconnect();
+  }
+
+  @Test
+  public void test19_PoolVirtualThreads() throws Exception {
+    SQLConnectionPool.Options options = new SQLConnectionPool.Options();
+    options.setMaxConnections(2);
+    options.setVirtualThreads(true);
+    if (!JVM.isVirtualThreadsSupported()) {
+      assertThrows(UnsupportedOperationException.class, () -> SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).createPool(options));
+      // Virtual thread mode still works with own executor.
+      options.setAsyncExecutor(BoundedExecutor.sharedExecutor());
+    }
+    SQLConnectionPool pool = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).createPool(options);
+
+    SQLDatabaseConnection first = pool.getResource();
+    first.close();
+    // Without thread affinity, the same free connection is found in the shared list.
+    SQLDatabaseConnection second = pool.getResource();
+    assertSame(first, second);
+    second.close();
+
+    List<CompletableFuture<QueryRowsResult<Row>>> futures = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      futures.add(pool.queryAsync(connection.select().from(table)));
+    }
+    for (CompletableFuture<QueryRowsResult<Row>> future : futures) {
+      assertTrue(future.get(5, TimeUnit.SECONDS).isSuccessful());
+    }
+    assertTrue(pool.getMetrics().getCreatedCount() <= 2);
+    pool.close();
+  }
+
+  @Test
+  public void test20_Publish() throws Exception {
+    int count = connection.select().from(table).obtainAll().size();
+    assertTrue(count > 2);
+
+    // Requests two rows at a time.
+    List<User> users = new ArrayList<>();
+    CompletableFuture<Void> completed = new CompletableFuture<>();
+    connection.publish(connection.select().from(table), User.class).subscribe(new Flow.Subscriber<User>() {
+      private Flow.Subscription subscription;
+      private int received = 0;
+
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(2);
+      }
+
+      @Override
+      public void onNext(User item) {
+        users.add(item);
+        if (++received % 2 == 0) subscription.request(2);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        completed.completeExceptionally(throwable);
+      }
+
+      @Override
+      public void onComplete() {
+        completed.complete(null);
+      }
+    });
+    completed.get(5, TimeUnit.SECONDS);
+    assertEquals(count, users.size());
+
+    SQLConnectionPool pool = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).createPool(new SQLConnectionPool.Options());
+    Flow.Publisher<User> publisher = pool.publish(connection.select().from(table), User.class);
+    // Nothing is borrowed until rows are requested.
+    CompletableFuture<User> first = new CompletableFuture<>();
+    publisher.subscribe(new Flow.Subscriber<User>() {
+      private Flow.Subscription subscription;
+
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        assertEquals(0, pool.getMetrics().getActive());
+        subscription.request(1);
+      }
+
+      @Override
+      public void onNext(User item) {
+        assertEquals(1, pool.getMetrics().getActive());
+        first.complete(item);
+        subscription.cancel();
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        first.completeExceptionally(throwable);
+      }
+
+      @Override
+      public void onComplete() {
+        first.completeExceptionally(new IllegalStateException("Completed after cancel"));
+      }
+    });
+    assertNotNull(first.get(5, TimeUnit.SECONDS));
+    long deadline = System.currentTimeMillis() + 5000L;
+    while (pool.getMetrics().getActive() > 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10L);
+    }
+    // Cancelled subscription returned its connection.
+    assertEquals(0, pool.getMetrics().getActive());
+    assertEquals(1, pool.size());
+    pool.close();
+  }
+
+  @Test
+  public void test21_LazyDebug() {
+    SQLDatabaseConnectionImpl impl = (SQLDatabaseConnectionImpl) connection;
+    assertFalse(impl.isDebug());
+    impl.debug(() -> fail("Message built while debug is disabled"));
+
+    SQLDatabaseOptions options = new SQLDatabaseOptions();
+    options.setDebug(true);
+    SQLDatabaseConnection debugConnection = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).build(options);
+    assertTrue(debugConnection.connect());
+    List<String> messages = new ArrayList<>();
+    Handler handler = new Handler() {
+      @Override
+      public void publish(LogRecord record) {
+        messages.add(record.getMessage());
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    Logger.getGlobal().addHandler(handler);
+    try {
+      assertTrue(debugConnection.select().from(table).where().isEqual("nickname", "User1").obtainAll().isSuccessful());
+    } finally {
+      Logger.getGlobal().removeHandler(handler);
+      debugConnection.disconnect();
+    }
+    assertTrue(messages.stream().anyMatch(message -> message.startsWith("P-Query: SELECT")));
+    assertTrue(messages.contains("P-Values: [User1]"));
+  }
+
+  @Test
+  public void test22_QueryListener() throws Exception {
+    List<String> events = new ArrayList<>();
+    List<Long> fingerprints = new ArrayList<>();
+    QueryListener listener = event -> {
+      events.add(event.getKind() + " " + event.getOutcome() + " " + event.getRowCount());
+      fingerprints.add(event.getFingerprint());
+      assertTrue(event.getTotalNanos() >= event.getBuildNanos() + event.getPrepareNanos()
+              + event.getExecuteNanos() + event.getReadNanos() + event.getMapNanos());
+      if (event.getOutcome() == QueryEvent.Outcome.SUCCESS) {
+        assertTrue(event.getExecuteNanos() > 0);
+        assertNotNull(event.getSql());
+      }
+    };
+    connection.addQueryListener(listener);
+    try {
+      assertEquals(1, connection.select().from(table).where().isEqual("nickname", "User1").obtainAll(User.class).size());
+      assertEquals(1, connection.select().from(table).where().isEqual("nickname", "User2").obtainAll().size());
+      assertTrue(connection.update().table(table).set("points", 100)
+              .where().isEqual("nickname", "User1").execute().isSuccessful());
+      assertFalse(connection.query(() -> "SELECT * FROM missing_table").isSuccessful());
+    } finally {
+      connection.removeQueryListener(listener);
+    }
+    assertEquals(Arrays.asList("QUERY SUCCESS 1", "QUERY SUCCESS 1", "EXEC SUCCESS 1", "QUERY ERROR -1"), events);
+    assertEquals(fingerprints.get(0), fingerprints.get(1));
+    assertEquals("SELECT * FROM t WHERE id IN (?) AND name = ? AND t1.x = ?",
+            SqlFingerprint.normalize("SELECT *  FROM t\n WHERE id IN (1, 2,3) AND name = 'O''Brien' AND t1.x = ?"));
+
+    connection.select().from(table).obtainAll();
+    assertEquals(4, events.size());
+
+    SQLConnectionPool pool = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).createPool(new SQLConnectionPool.Options());
+    pool.getResource().close();
+    pool.addQueryListener(listener);
+    try (SQLDatabaseConnection pooled = pool.getResource()) {
+      pooled.select().from(table).where().isEqual("nickname", "User3").obtainAll();
+    }
+    assertEquals("QUERY SUCCESS 1", events.get(4));
+    pool.close();
+  }
+
+  @Test
+  public void test23_SlowQueryLog() {
+    SQLDatabaseOptions options = new SQLDatabaseOptions();
+    options.setSlowQueryThreshold(1);
+    options.setExplainSlowQueries(true);
+    options.setSlowQueryRedactedColumns(new HashSet<>(Collections.singletonList("NICKNAME")));
+    SQLDatabaseConnectionImpl slowConnection = (SQLDatabaseConnectionImpl) SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).build(options);
+    assertTrue(slowConnection.connect());
+    List<String> messages = new ArrayList<>();
+    Logger logger = Logger.getAnonymousLogger();
+    logger.setUseParentHandlers(false);
+    logger.addHandler(new Handler() {
+      @Override
+      public void publish(LogRecord record) {
+        messages.add(record.getMessage());
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    });
+    slowConnection.setLogger(logger);
+    try {
+      // Mapping is part of the query, so each row makes it slow.
+      for (int i = 0; i < 2; i++) {
+        assertEquals(1, slowConnection.select().from(table)
+                .where().isEqual("nickname", "User1").and().isEqual("points", 100)
+                .obtainAll(SlowUser.class).size());
+      }
+    } finally {
+      slowConnection.disconnect();
+    }
+    assertEquals(2, messages.size());
+    String first = messages.get(0);
+    assertTrue(first.startsWith("Slow query ("), first);
+    assertTrue(first.contains("QUERY, 1 rows): SELECT * FROM users WHERE nickname = ? AND points = ?"), first);
+    assertTrue(first.contains("parameters: [nickname=***, points=100]"), first);
+    assertFalse(first.contains("User1"), first);
+    assertTrue(first.contains("Query plan:"), first);
+    // Explained only once.
+    assertFalse(messages.get(1).contains("Query plan:"), messages.get(1));
+
+    assertArrayEquals(new String[]{"nickname", "points", "nickname", "points", "points"},
+            SlowQueryLog.parameterColumns("INSERT INTO users (`nickname`, points) VALUES (?, ?), (?, ?) " +
+                    "ON DUPLICATE KEY UPDATE points = ?", 5));
+    // Values of unknown columns are hidden when redacting.
+    QueryTrace trace = new QueryTrace();
+    trace.start(QueryEvent.Kind.QUERY);
+    trace.built("SELECT * FROM users WHERE LOWER(email) = ? AND points = ?", new Object[]{"secret@mail.com", 5});
+    trace.finish();
+    String report = SlowQueryLog.describe(trace, Collections.singleton("email"), null);
+    assertTrue(report.contains("parameters: [***, points=5]"), report);
+    assertTrue(SlowQueryLog.describe(trace, Collections.emptySet(), null).contains("'secret@mail.com'"));
+    // Function name is not a column.
+    assertArrayEquals(new String[]{null, "id"},
+            SlowQueryLog.parameterColumns("SELECT * FROM users WHERE email = LOWER(?) AND id = ?", 2));
+    trace = new QueryTrace();
+    trace.start(QueryEvent.Kind.QUERY);
+    trace.built("SELECT * FROM users WHERE email = LOWER(?) AND id = ?", new Object[]{"secret@mail.com", 1});
+    trace.finish();
+    report = SlowQueryLog.describe(trace, Collections.singleton("email"), null);
+    assertTrue(report.contains("parameters: [***, id=1]"), report);
+
+    assertArrayEquals(new String[]{"id", "id", "age", "age", null},
+            SlowQueryLog.parameterColumns("SELECT * FROM t WHERE t.id IN (?, ?) AND age NOT BETWEEN ? AND ? LIMIT ?", 5));
+  }
+
+  @Test
+  public void test24_PoolClose() throws Exception {
+    SQLConnectionPool.Options options = new SQLConnectionPool.Options();
+    options.setHousekeepingPeriod(1000L);
+    SQLConnectionPool pool = SQLConnectionBuilder.ofSQLite(file.getAbsolutePath()).createPool(options);
+    SQLDatabaseConnection idle = pool.getResource();
+    SQLDatabaseConnection borrowed = pool.getResource();
+    idle.close();
+    assertFalse(pool.isClosed());
+
+    pool.close();
+    assertTrue(pool.isClosed());
+    assertTrue(isClosed(idle));
+    assertThrows(SQLException.class, pool::getResource);
+    // Connection borrowed while closing is not reused once returned.
+    assertTrue(isClosed(borrowed));
+    assertTrue(borrowed.connect());
+    borrowed.close();
+    assertTrue(isClosed(borrowed));
+    assertEquals(0, pool.size());
+    assertEquals(0, pool.getMetrics().getTotal());
+  }
+
+  private static boolean isClosed(SQLDatabaseConnection connection) throws SQLException {
+    return connection.getConnection() == null || connection.getConnection().isClosed();
+  }
+
+  @AfterAll
+  public void close() {
+    connection.disconnect();
+    file.delete();
+  }
+
+  @AllArgsConstructor
+  public static class Entry {
+    private static final String IGNORED = "ignored";
+    @PrimaryKey(autoIncrement = true)
+    private Integer id;
+    private String name;
+    private long lastSeen;
+    private transient Object cache;
+
+    public Entry(Integer id, String name, long lastSeen) {
+      this(id, name, lastSeen, null);
+    }
+  }
+
+  @Table("users")
+  public interface AsyncRepository {
+    @Select
+    @Where(@Where.Condition(column = "nickname", value = "{name}"))
+    @Limit(1)
+    CompletableFuture<Optional<User>> selectOne(@Placeholder("name") String nickname);
+
+    @Select
+    CompletableFuture<List<User>> selectAll();
+  }
+
+  public static class Order {
+    private int id;
+    @LinkedOne(localColumn = "customer_id", targetTable = "customers")
+    private Customer customer;
+  }
+
+  public static class LazyOrder {
+    private int id;
+    @LinkedOne(localColumn = "customer_id", targetTable = "customers", fetch = LinkedOne.Fetch.LAZY)
+    private Lazy<Customer> customer;
+  }
+
+  public static class Customer {
+    @PrimaryKey
+    private int id;
+    private String name;
+  }
+
+  public static class Ranking {
+    private String nickname;
+    private Score points;
+    private long lastSeen;
+  }
+
+  @AllArgsConstructor
+  public static class Score {
+    private final int value;
+  }
+
+  public static class SlowUser {
+    private String nickname;
+    private int points;
+
+    public SlowUser() throws InterruptedException {
+      Thread.sleep(5);
+    }
+  }
+
+  @AllArgsConstructor
+  public static class User {
+    @PrimaryKey
+    private final String nickname;
+    private final int points;
+
+    public String getNickname() {
+      return nickname;
+    }
+
+    public int getPoints() {
+      return points;
+    }
+  }
+
+}